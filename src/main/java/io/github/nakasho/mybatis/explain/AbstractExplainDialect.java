@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Base class for dialects that explain with a SQL prefix and return the plan as rows.
+ * <p>
+ * A databaseId matches when it equals one of the given ids (case-insensitive) or looks like a product name,
+ * as produced by {@link org.apache.ibatis.mapping.VendorDatabaseIdProvider} without a mapping.
+ * A product name matches when it starts with one of the given product names (case-insensitive).
+ * Each row is logged as its single value, or as {@code label=value} pairs when there are several columns.
+ */
+public abstract class AbstractExplainDialect implements ExplainDialect {
+
+  private final String name;
+  private final String explainPrefix;
+  private final List<String> databaseIds;
+  private final List<String> productNames;
+
+  /**
+   * Creates a dialect.
+   *
+   * @param name the dialect name
+   * @param explainPrefix the prefix prepended to the SQL
+   * @param databaseIds the databaseIds handled by this dialect
+   * @param productNames the product name prefixes handled by this dialect
+   */
+  protected AbstractExplainDialect(String name, String explainPrefix, List<String> databaseIds,
+      List<String> productNames) {
+    this.name = name;
+    this.explainPrefix = explainPrefix;
+    this.databaseIds = lowerCase(databaseIds);
+    this.productNames = lowerCase(productNames);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean matchesDatabaseId(String databaseId) {
+    return databaseIds.contains(databaseId.toLowerCase(Locale.ROOT)) || matchesProductName(databaseId);
+  }
+
+  @Override
+  public boolean matchesProductName(String productName) {
+    String lower = productName.toLowerCase(Locale.ROOT);
+    for (String prefix : productNames) {
+      if (lower.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String getExplainSql(String sql) {
+    return explainPrefix + sql;
+  }
+
+  @Override
+  public ExplainPlan readPlan(ResultSet rs) throws Exception {
+    ResultSetMetaData metaData = rs.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    List<String> labels = new ArrayList<>(columnCount);
+    for (int i = 1; i <= columnCount; i++) {
+      labels.add(metaData.getColumnLabel(i));
+    }
+    List<String> lines = new ArrayList<>();
+    List<String[]> rows = new ArrayList<>();
+    while (rs.next()) {
+      String[] values = new String[columnCount];
+      StringBuilder line = new StringBuilder();
+      for (int i = 1; i <= columnCount; i++) {
+        values[i - 1] = rs.getString(i);
+        if (columnCount > 1) {
+          if (i > 1) {
+            line.append(", ");
+          }
+          line.append(labels.get(i - 1)).append("=");
+        }
+        line.append(values[i - 1]);
+      }
+      rows.add(values);
+      lines.add(line.toString());
+    }
+    return new ExplainPlan(lines, parseNodes(labels, rows), Collections.<MissingIndex>emptyList());
+  }
+
+  /**
+   * Builds the operator trees from the rows returned by the explain statement.
+   * The default implementation returns no operators; the plan is then only logged.
+   *
+   * @param labels the column labels
+   * @param rows the row values in column order
+   * @return the root operators
+   * @throws SQLException if the rows cannot be interpreted
+   */
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) throws SQLException {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the index of the column with the given label (case-insensitive), or {@code -1}.
+   *
+   * @param labels the column labels
+   * @param label the label to look for
+   * @return the column index, or {@code -1}
+   */
+  protected static int indexOf(List<String> labels, String label) {
+    for (int i = 0; i < labels.size(); i++) {
+      if (label.equalsIgnoreCase(labels.get(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Parses an estimate, returning {@link Double#NaN} when the value is absent or not numeric.
+   *
+   * @param value the value to parse, may be {@code null}
+   * @return the parsed value, or {@link Double#NaN}
+   */
+  protected static double parseEstimate(String value) {
+    if (value == null) {
+      return Double.NaN;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  private static List<String> lowerCase(List<String> values) {
+    List<String> lower = new ArrayList<>(values.size());
+    for (String value : values) {
+      lower.add(value.toLowerCase(Locale.ROOT));
+    }
+    return Collections.unmodifiableList(lower);
+  }
+}
@@ -17,8 +17,12 @@ package io.github.nakasho.mybatis.explain;
 
 /**
  * Database types with their corresponding EXPLAIN prefix.
- * A {@code null} prefix indicates that EXPLAIN is not supported.
+ * A {@code null} prefix indicates that the plan is not obtained with an EXPLAIN prefix;
+ * for {@link #SQL_SERVER} it is captured with {@code SET SHOWPLAN_XML ON} instead.
+ *
+ * @deprecated the interceptor resolves an {@link ExplainDialect} instead; this enum is no longer consulted.
  */
+@Deprecated
 public enum DatabaseType {
 
   DEFAULT("EXPLAIN "),
@@ -32,7 +36,7 @@ public enum DatabaseType {
   }
 
   /**
-   * Returns the EXPLAIN prefix for this database type, or {@code null} if EXPLAIN is not supported.
+   * Returns the EXPLAIN prefix for this database type, or {@code null} if the plan is not obtained with a prefix.
    *
    * @return the EXPLAIN prefix, or {@code null}
    */
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DB2 dialect issuing {@code EXPLAIN PLAN SET QUERYTAG = '<tag>' FOR <SQL>}.
+ * The plan is written to the explain tables, so the operators are read back from {@code EXPLAIN_OPERATOR},
+ * together with the table or index each operator reads and its parent operator from {@code EXPLAIN_STREAM}.
+ * Every explain gets a random query tag and is read back by tag and {@code CURRENT USER}, so concurrent sessions
+ * never see each other's plans; the explain instance is deleted once read (the explain tables cascade).
+ * The explain tables must exist in the current schema (see {@code SYSPROC.SYSINSTALLOBJECTS}).
+ */
+final class Db2ExplainDialect extends AbstractExplainDialect {
+
+  private static final Pattern QUERY_TAG = Pattern.compile("^EXPLAIN PLAN SET QUERYTAG = '(\\w+)' FOR ");
+
+  private static final String STATEMENT_KEY = "%1$s.EXPLAIN_REQUESTER = T.EXPLAIN_REQUESTER"
+      + " AND %1$s.EXPLAIN_TIME = T.EXPLAIN_TIME AND %1$s.SOURCE_NAME = T.SOURCE_NAME"
+      + " AND %1$s.SOURCE_SCHEMA = T.SOURCE_SCHEMA AND %1$s.SOURCE_VERSION = T.SOURCE_VERSION"
+      + " AND %1$s.EXPLAIN_LEVEL = T.EXPLAIN_LEVEL AND %1$s.STMTNO = T.STMTNO AND %1$s.SECTNO = T.SECTNO";
+
+  private static final String PLAN_QUERY = "SELECT O.OPERATOR_ID, O.OPERATOR_TYPE, O.TOTAL_COST,"
+      + " S.OBJECT_NAME, S.STREAM_COUNT, P.TARGET_ID AS PARENT_ID"
+      + " FROM EXPLAIN_STATEMENT T"
+      + " JOIN EXPLAIN_OPERATOR O ON " + String.format(Locale.ROOT, STATEMENT_KEY, "O")
+      + " LEFT JOIN EXPLAIN_STREAM S ON " + String.format(Locale.ROOT, STATEMENT_KEY, "S")
+      + " AND S.TARGET_ID = O.OPERATOR_ID AND S.TARGET_TYPE = 'O' AND S.SOURCE_TYPE = 'D'"
+      + " LEFT JOIN EXPLAIN_STREAM P ON " + String.format(Locale.ROOT, STATEMENT_KEY, "P")
+      + " AND P.SOURCE_ID = O.OPERATOR_ID AND P.SOURCE_TYPE = 'O' AND P.TARGET_TYPE = 'O'"
+      + " WHERE T.EXPLAIN_REQUESTER = CURRENT USER AND T.QUERYTAG = '%s' AND T.EXPLAIN_LEVEL = 'P'"
+      + " ORDER BY O.OPERATOR_ID";
+
+  private static final String CLEANUP_SQL = "DELETE FROM EXPLAIN_INSTANCE"
+      + " WHERE (EXPLAIN_REQUESTER, EXPLAIN_TIME, SOURCE_NAME, SOURCE_SCHEMA, SOURCE_VERSION) IN"
+      + " (SELECT EXPLAIN_REQUESTER, EXPLAIN_TIME, SOURCE_NAME, SOURCE_SCHEMA, SOURCE_VERSION"
+      + " FROM EXPLAIN_STATEMENT WHERE EXPLAIN_REQUESTER = CURRENT USER AND QUERYTAG = '%s')";
+
+  Db2ExplainDialect() {
+    super("db2", "EXPLAIN PLAN FOR ", List.of("db2"), List.of("DB2"));
+  }
+
+  /**
+   * Tags the explain with a fresh 19-character query tag ({@code QUERYTAG} holds 20).
+   */
+  @Override
+  public String getExplainSql(String sql) {
+    String tag = String.format(Locale.ROOT, "MBX%016X", ThreadLocalRandom.current().nextLong());
+    return "EXPLAIN PLAN SET QUERYTAG = '" + tag + "' FOR " + sql;
+  }
+
+  @Override
+  public String getPlanQuery(String explainSql) {
+    return String.format(Locale.ROOT, PLAN_QUERY, queryTag(explainSql));
+  }
+
+  @Override
+  public String getPlanCleanupSql(String explainSql) {
+    return String.format(Locale.ROOT, CLEANUP_SQL, queryTag(explainSql));
+  }
+
+  private static String queryTag(String explainSql) {
+    Matcher matcher = QUERY_TAG.matcher(explainSql);
+    if (!matcher.find()) {
+      throw new IllegalArgumentException("Not a tagged DB2 explain statement: " + explainSql);
+    }
+    return matcher.group(1);
+  }
+
+  /**
+   * Links the operators through their output streams; the operator without parent ({@code RETURN}) is the root.
+   * {@code TOTAL_COST} is cumulative, so the plan cost is the root cost.
+   */
+  @Override
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) {
+    Map<String, String[]> operators = new LinkedHashMap<>();
+    Map<String, List<String>> children = new HashMap<>();
+    List<String> roots = new ArrayList<>();
+    for (String[] row : rows) {
+      String id = row[0].trim();
+      if (operators.putIfAbsent(id, row) == null) {
+        if (row[5] == null) {
+          roots.add(id);
+        } else {
+          children.computeIfAbsent(row[5].trim(), key -> new ArrayList<>()).add(id);
+        }
+      }
+    }
+    List<PlanNode> nodes = new ArrayList<>(roots.size());
+    for (String root : roots) {
+      nodes.add(node(root, operators, children));
+    }
+    return nodes;
+  }
+
+  private static PlanNode node(String id, Map<String, String[]> operators, Map<String, List<String>> children) {
+    String[] row = operators.get(id);
+    List<PlanNode> inputs = new ArrayList<>();
+    for (String child : children.getOrDefault(id, Collections.<String>emptyList())) {
+      inputs.add(node(child, operators, children));
+    }
+    String operation = row[1].trim();
+    String objectName = row[3] == null ? null : row[3].trim();
+    boolean indexScan = "IXSCAN".equals(operation);
+    return new PlanNode(operation, indexScan ? null : objectName, indexScan ? objectName : null,
+        parseEstimate(row[4]), parseEstimate(row[2]), inputs);
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service provider interface describing how a database explains a statement.
+ * <p>
+ * Implementations are discovered with {@link java.util.ServiceLoader} from
+ * {@code META-INF/services/io.github.nakasho.mybatis.explain.ExplainDialect} and take precedence over the
+ * built-in dialects. Most implementations extend {@link AbstractExplainDialect}.
+ */
+public interface ExplainDialect {
+
+  /**
+   * Returns a short name identifying this dialect in logs.
+   *
+   * @return the dialect name
+   */
+  String getName();
+
+  /**
+   * Returns whether this dialect handles the given MyBatis databaseId.
+   *
+   * @param databaseId the databaseId from {@link org.apache.ibatis.mapping.MappedStatement#getDatabaseId()}
+   * @return {@code true} if this dialect handles the databaseId
+   */
+  boolean matchesDatabaseId(String databaseId);
+
+  /**
+   * Returns whether this dialect handles the given JDBC product name.
+   *
+   * @param productName the value of {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+   * @return {@code true} if this dialect handles the product
+   */
+  boolean matchesProductName(String productName);
+
+  /**
+   * Returns the statement that explains {@code sql}. Parameter markers must be kept as-is.
+   *
+   * @param sql the original SQL
+   * @return the explain statement
+   */
+  String getExplainSql(String sql);
+
+  /**
+   * Returns whether the database can explain with actual execution statistics.
+   *
+   * @return {@code true} if {@link #getAnalyzeSql(String)} is supported
+   */
+  default boolean supportsAnalyze() {
+    return false;
+  }
+
+  /**
+   * Returns the statement that executes {@code sql} and reports actual execution statistics.
+   *
+   * @param sql the original SQL
+   * @return the explain-analyze statement
+   * @throws UnsupportedOperationException if {@link #supportsAnalyze()} is {@code false}
+   */
+  default String getAnalyzeSql(String sql) {
+    throw new UnsupportedOperationException(getName() + " does not support EXPLAIN ANALYZE");
+  }
+
+  /**
+   * Returns whether the database can report the plan as JSON.
+   *
+   * @return {@code true} if a JSON plan format is supported
+   */
+  default boolean supportsJsonFormat() {
+    return false;
+  }
+
+  /**
+   * Returns the statement that explains {@code sql} as a single JSON document.
+   *
+   * @param sql the original SQL
+   * @return the JSON explain statement
+   * @throws UnsupportedOperationException if {@link #supportsJsonFormat()} is {@code false}
+   */
+  default String getJsonExplainSql(String sql) {
+    throw new UnsupportedOperationException(getName() + " does not support JSON plans");
+  }
+
+  /**
+   * Reads a JSON plan from the first column of each row.
+   * The column is read as a character stream and parsed incrementally, so the document is never materialized.
+   *
+   * @param rs the result set positioned before the first row
+   * @return the parsed plan
+   * @throws Exception if the plan cannot be read
+   */
+  default ExplainPlan readJsonPlan(ResultSet rs) throws Exception {
+    List<PlanNode> roots = new ArrayList<>();
+    while (rs.next()) {
+      try (Reader reader = rs.getCharacterStream(1)) {
+        roots.addAll(JsonPlanParser.parse(reader).getRoots());
+      }
+    }
+    return new ExplainPlan(roots, Collections.<MissingIndex>emptyList());
+  }
+
+  /**
+   * Prepares the connection before the explain statement is executed.
+   *
+   * @param connection the connection of the original statement
+   * @throws SQLException if the connection cannot be prepared
+   */
+  default void beforeExplain(Connection connection) throws SQLException {
+    // nothing to prepare
+  }
+
+  /**
+   * Restores the connection after the explain statement, whether or not it succeeded.
+   *
+   * @param connection the connection of the original statement
+   * @throws SQLException if the connection cannot be restored; the interceptor then aborts the connection and fails
+   *     the original statement
+   */
+  default void afterExplain(Connection connection) throws SQLException {
+    // nothing to restore
+  }
+
+  /**
+   * Returns the query that reads the plan when the explain statement itself returns no rows
+   * (e.g. the plan is written to explain tables), or {@code null} if the explain statement returns the plan.
+   *
+   * @param explainSql the explain statement that was executed, as returned by {@link #getExplainSql(String)}
+   * @return the plan query, or {@code null}
+   */
+  default String getPlanQuery(String explainSql) {
+    return null;
+  }
+
+  /**
+   * Returns the statement that removes the plan written by {@code explainSql} once it has been read,
+   * or {@code null} if nothing needs to be removed. Only used together with {@link #getPlanQuery(String)}.
+   *
+   * @param explainSql the explain statement that was executed
+   * @return the cleanup statement, or {@code null}
+   */
+  default String getPlanCleanupSql(String explainSql) {
+    return null;
+  }
+
+  /**
+   * Reads the plan from the result of the explain statement (or of {@link #getPlanQuery(String)}).
+   *
+   * @param rs the result set positioned before the first row
+   * @return the parsed plan
+   * @throws Exception if the plan cannot be read
+   */
+  ExplainPlan readPlan(ResultSet rs) throws Exception;
+}
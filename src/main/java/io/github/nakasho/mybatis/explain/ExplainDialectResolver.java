@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Resolves the {@link ExplainDialect} of a statement.
+ * <p>
+ * The databaseId is tried first. When it is unset or unknown, the dialect is detected from
+ * {@link DatabaseMetaData#getDatabaseProductName()} once per {@link javax.sql.DataSource} and cached,
+ * so the metadata lookup is not repeated for every statement.
+ */
+final class ExplainDialectResolver {
+
+  static final ExplainDialect GENERIC = new GenericExplainDialect();
+
+  private final List<ExplainDialect> dialects;
+  private final Map<String, ExplainDialect> byDatabaseId = new ConcurrentHashMap<>();
+  private final Map<Object, ExplainDialect> byDataSource = new ConcurrentHashMap<>();
+
+  ExplainDialectResolver() {
+    this(ServiceLoader.load(ExplainDialect.class));
+  }
+
+  /**
+   * Creates a resolver trying the given dialects before the built-in ones.
+   */
+  ExplainDialectResolver(Iterable<ExplainDialect> providedDialects) {
+    List<ExplainDialect> list = new ArrayList<>();
+    for (ExplainDialect dialect : providedDialects) {
+      list.add(dialect);
+    }
+    list.add(new MySqlExplainDialect());
+    list.add(new PostgreSqlExplainDialect());
+    list.add(new OracleExplainDialect());
+    list.add(new SqlServerExplainDialect());
+    list.add(new SqliteExplainDialect());
+    list.add(new Db2ExplainDialect());
+    this.dialects = Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Returns the dialect for a statement, falling back to {@link #GENERIC}.
+   *
+   * @param databaseId the databaseId of the statement, may be {@code null}
+   * @param configuration the configuration whose DataSource keys the metadata cache
+   * @param connection the connection used when the product name has to be detected
+   * @return the resolved dialect
+   * @throws SQLException if the database metadata cannot be read
+   */
+  ExplainDialect resolve(String databaseId, Configuration configuration, Connection connection) throws SQLException {
+    if (databaseId != null) {
+      ExplainDialect dialect = byDatabaseId.computeIfAbsent(databaseId, this::findByDatabaseId);
+      if (dialect != GENERIC) {
+        return dialect;
+      }
+    }
+    Environment environment = configuration.getEnvironment();
+    Object key = environment == null ? configuration : environment.getDataSource();
+    ExplainDialect dialect = byDataSource.get(key);
+    if (dialect == null) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      dialect = metaData == null ? GENERIC : findByProductName(metaData.getDatabaseProductName());
+      byDataSource.put(key, dialect);
+    }
+    return dialect;
+  }
+
+  private ExplainDialect findByDatabaseId(String databaseId) {
+    for (ExplainDialect dialect : dialects) {
+      if (dialect.matchesDatabaseId(databaseId)) {
+        return dialect;
+      }
+    }
+    return GENERIC;
+  }
+
+  private ExplainDialect findByProductName(String productName) {
+    if (productName != null) {
+      for (ExplainDialect dialect : dialects) {
+        if (dialect.matchesProductName(productName)) {
+          return dialect;
+        }
+      }
+    }
+    return GENERIC;
+  }
+}
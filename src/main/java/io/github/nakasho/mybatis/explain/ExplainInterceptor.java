@@ -18,28 +18,82 @@ package io.github.nakasho.mybatis.explain;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.Intercepts;
 import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
 /**
  * MyBatis interceptor that executes {@code EXPLAIN <SQL>} after query/update.
- * It runs only when the statement log is DEBUG and skips CALLABLE statements.
- * EXPLAIN failures are logged at DEBUG and do not affect the original execution.
+ * The explain syntax and plan parsing come from the {@link ExplainDialect} matching the databaseId,
+ * or the JDBC product name when the databaseId is unset or unknown.
+ * By default it runs only when the statement log is DEBUG; {@code policy.<n>.*} rules can instead always, never or
+ * sometimes explain selected statements (see {@link ExplainPolicies}). The plans of such statements whose log is not
+ * DEBUG are logged to the {@code io.github.nakasho.mybatis.explain.ExplainInterceptor} logger, and they are not
+ * explained at all when neither logger is DEBUG and no advisor or tracker uses the plan.
+ * CALLABLE statements are always skipped.
+ * EXPLAIN failures are logged at DEBUG and do not affect the original execution, except a failure to restore the
+ * connection after EXPLAIN (see {@link ExplainDialect#afterExplain(Connection)}): the connection is then aborted and an
+ * {@link ExecutorException} is thrown, since statements run on it later could be silently ignored.
+ * <p>
+ * {@code StatementHandler.prepare} is intercepted as well, to reuse the SQL MyBatis built for the execution instead
+ * of rendering dynamic SQL a second time. The SQL is only rebuilt from the parameter when the statement was not
+ * prepared during the call: results served from the cache, and batch updates reusing the previous statement.
+ * <p>
+ * Supported properties:
+ * <ul>
+ *   <li>{@code analyze} - {@code true} to explain SELECT statements with actual execution statistics
+ *       on databases supporting it (the query is executed once more). Default {@code false}.</li>
+ *   <li>{@code format} - {@code json} to fetch the plan as JSON on databases supporting it. The JSON column is
+ *       streamed and parsed incrementally and the operator tree is logged instead of the raw document;
+ *       {@code analyze} is not applied in this mode. Default {@code text}.</li>
+ *   <li>{@code indexAdvisor} - {@code true} to feed every explained plan to an {@link IndexAdvisor},
+ *       available from {@link #getIndexAdvisor()}; plans sampled by a policy count for {@code 1 / rate}
+ *       executions. Default {@code false}.</li>
+ *   <li>{@code indexAdvisor.reportOnShutdown} - {@code true} to log the advisor report at DEBUG when the JVM
+ *       shuts down. Default {@code false}.</li>
+ *   <li>{@code planDivergence} - {@code true} to track the plans each statement produces with different bind values
+ *       in a {@link PlanDivergenceTracker}, available from {@link #getPlanDivergenceTracker()}. A plan differing
+ *       from earlier executions of the statement is flagged in the log. Default {@code false}.</li>
+ *   <li>{@code heavyStatements} - {@code true} to time every execution (whatever the log level) and keep the
+ *       heaviest statements in a fixed-memory {@link HeavyStatementTracker}, available from
+ *       {@link #getHeavyStatementTracker()}. Default {@code false}.</li>
+ *   <li>{@code heavyStatements.capacity} - number of statements monitored. Default {@code 256}.</li>
+ *   <li>{@code heavyStatements.weight} - {@code latency} to rank by execution time or {@code cost} to rank by
+ *       estimated plan cost. Default {@code latency}.</li>
+ *   <li>{@code heavyStatements.logInterval} - seconds between reports of the top statements, logged at DEBUG;
+ *       {@code 0} disables the report. Default {@code 0}.</li>
+ *   <li>{@code heavyStatements.topK} - number of statements in the periodic report. Default {@code 10}.</li>
+ *   <li>{@code policy.<n>.action}, {@code policy.<n>.rate}, {@code policy.<n>.id}, {@code policy.<n>.command},
+ *       {@code policy.<n>.databaseId} - per-statement explain rules, see {@link ExplainPolicies}.</li>
+ *   <li>{@code policyFile} - properties file holding {@code policy.<n>.*} rules, {@code classpath:} prefixed
+ *       or on the file system.</li>
+ * </ul>
  */
 @Intercepts({
     @Signature(type = Executor.class, method = "query",
@@ -47,79 +101,293 @@ import org.apache.ibatis.session.RowBounds;
     @Signature(type = Executor.class, method = "query",
         args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
     @Signature(type = Executor.class, method = "update",
-        args = {MappedStatement.class, Object.class})
+        args = {MappedStatement.class, Object.class}),
+    @Signature(type = StatementHandler.class, method = "prepare",
+        args = {Connection.class, Integer.class})
 })
 public class ExplainInterceptor implements Interceptor {
 
+  private final ExplainDialectResolver dialectResolver;
+  private final Log policyLog;
+  private final ThreadLocal<BoundSql[]> preparedSql = new ThreadLocal<>();
+  private boolean analyze;
+  private boolean jsonFormat;
+  private IndexAdvisor indexAdvisor;
+  private Thread indexAdvisorShutdownHook;
+  private PlanDivergenceTracker planDivergenceTracker;
+  private volatile HeavyStatementTracker heavyStatementTracker;
+  private ExplainPolicies policies = ExplainPolicies.NONE;
+
   /**
    * Creates a new interceptor instance.
    */
   public ExplainInterceptor() {
-    // default constructor
+    this(new ExplainDialectResolver());
+  }
+
+  ExplainInterceptor(ExplainDialectResolver dialectResolver) {
+    this(dialectResolver, LogFactory.getLog(ExplainInterceptor.class));
+  }
+
+  ExplainInterceptor(ExplainDialectResolver dialectResolver, Log policyLog) {
+    this.dialectResolver = dialectResolver;
+    this.policyLog = policyLog;
   }
 
   @Override
   public Object intercept(Invocation invocation) throws Throwable {
-    Object proceed = invocation.proceed();
+    if (invocation.getTarget() instanceof StatementHandler) {
+      BoundSql[] prepared = preparedSql.get();
+      if (prepared != null && prepared[0] == null) {
+        prepared[0] = ((StatementHandler) invocation.getTarget()).getBoundSql();
+      }
+      return invocation.proceed();
+    }
+
+    HeavyStatementTracker tracker = heavyStatementTracker;
+    BoundSql[] outer = preparedSql.get();
+    BoundSql[] prepared = new BoundSql[1];
+    preparedSql.set(prepared);
+    Object proceed;
+    long elapsedNanos;
+    try {
+      long start = tracker == null ? 0 : System.nanoTime();
+      proceed = invocation.proceed();
+      elapsedNanos = tracker == null ? 0 : System.nanoTime() - start;
+    } finally {
+      if (outer == null) {
+        preparedSql.remove();
+      } else {
+        preparedSql.set(outer);
+      }
+    }
 
-    MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+    Object[] args = invocation.getArgs();
+    MappedStatement ms = (MappedStatement) args[0];
     Log statementLog = ms.getStatementLog();
+    try {
+      Object parameter = args[1];
+      BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : prepared[0];
+      ExplainPlan plan = null;
 
-    if (statementLog.isDebugEnabled() && ms.getStatementType() != StatementType.CALLABLE) {
-      Object parameter = invocation.getArgs()[1];
-      BoundSql boundSql = ms.getBoundSql(parameter);
-      executeExplain(ms, parameter, boundSql, (Executor) invocation.getTarget());
+      if (ms.getStatementType() != StatementType.CALLABLE && policies.resolve(ms).shouldExplain(statementLog)
+          && isPlanUsed(statementLog, tracker)) {
+        if (boundSql == null) {
+          boundSql = ms.getBoundSql(parameter);
+        }
+        plan = executeExplain(ms, parameter, boundSql, (Executor) invocation.getTarget());
+      }
+      if (tracker != null) {
+        tracker.record(ms, parameter, boundSql, elapsedNanos, plan == null ? Double.NaN : plan.getEstimatedCost());
+      }
+    } catch (SessionRestoreException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      statementLog.debug("<== ExplainPlan: Failed to analyze the execution: " + e.getMessage());
     }
 
     return proceed;
   }
 
+  /**
+   * Returns whether an explained plan would be logged or collected. A policy may select a statement whose log is
+   * not DEBUG, and its plan is then only worth the EXPLAIN if some other consumer reads it.
+   */
+  private boolean isPlanUsed(Log statementLog, HeavyStatementTracker tracker) {
+    return statementLog.isDebugEnabled() || policyLog.isDebugEnabled() || indexAdvisor != null
+        || planDivergenceTracker != null
+        || tracker != null && tracker.getWeight() == HeavyStatementTracker.Weight.COST;
+  }
+
   /**
    * Executes EXPLAIN using the same parameters and transaction as the original statement.
    * Package-private to allow focused tests without reflection.
+   *
+   * @return the logged plan, or {@code null} if EXPLAIN failed
+   * @throws ExecutorException if the connection could not be restored after EXPLAIN; the connection is then aborted
    */
-  void executeExplain(MappedStatement ms, Object parameter, BoundSql boundSql, Executor executor) {
+  ExplainPlan executeExplain(MappedStatement ms, Object parameter, BoundSql boundSql, Executor executor) {
     Log statementLog = ms.getStatementLog();
-    DatabaseType databaseType = DatabaseType.fromDatabaseId(ms.getDatabaseId());
-    String explainPrefix = databaseType.getExplainPrefix();
-    if (explainPrefix == null) {
-      return;
-    }
-    String sql = boundSql.getSql();
-    String explainSql = explainPrefix + sql;
+    Log planLog = !statementLog.isDebugEnabled() && policyLog.isDebugEnabled() ? policyLog : statementLog;
     Configuration configuration = ms.getConfiguration();
 
     try {
       Connection connection = executor.getTransaction().getConnection();
+      ExplainDialect dialect = dialectResolver.resolve(ms.getDatabaseId(), configuration, connection);
+      boolean json = jsonFormat && dialect.supportsJsonFormat();
+      String explainSql;
+      if (json) {
+        explainSql = dialect.getJsonExplainSql(boundSql.getSql());
+      } else if (analyze && dialect.supportsAnalyze() && ms.getSqlCommandType() == SqlCommandType.SELECT) {
+        explainSql = dialect.getAnalyzeSql(boundSql.getSql());
+      } else {
+        explainSql = dialect.getExplainSql(boundSql.getSql());
+      }
+      ExplainPlan plan;
+      dialect.beforeExplain(connection);
       try (PreparedStatement stmt = connection.prepareStatement(explainSql)) {
         ParameterHandler parameterHandler = configuration.newParameterHandler(ms, parameter, boundSql);
         parameterHandler.setParameters(stmt);
-        try (ResultSet rs = stmt.executeQuery()) {
-          ResultSetMetaData metaData = rs.getMetaData();
-          int columnCount = metaData.getColumnCount();
-          while (rs.next()) {
-            if (columnCount == 1) {
-              statementLog.debug("<== ExplainPlan: " + rs.getString(1));
-            } else {
-              StringBuilder row = new StringBuilder();
-              for (int i = 1; i <= columnCount; i++) {
-                if (i > 1) {
-                  row.append(", ");
-                }
-                row.append(metaData.getColumnLabel(i)).append("=").append(rs.getString(i));
+        String planQuery = dialect.getPlanQuery(explainSql);
+        if (planQuery == null) {
+          try (ResultSet rs = stmt.executeQuery()) {
+            plan = json ? dialect.readJsonPlan(rs) : dialect.readPlan(rs);
+          }
+        } else {
+          stmt.execute();
+          try (Statement query = connection.createStatement()) {
+            try (ResultSet rs = query.executeQuery(planQuery)) {
+              plan = dialect.readPlan(rs);
+            } finally {
+              String cleanupSql = dialect.getPlanCleanupSql(explainSql);
+              if (cleanupSql != null) {
+                query.executeUpdate(cleanupSql);
               }
-              statementLog.debug("<== ExplainPlan: " + row);
             }
           }
         }
+      } finally {
+        restore(dialect, connection);
+      }
+      for (String line : plan.toLines()) {
+        planLog.debug("<== ExplainPlan: " + line);
+      }
+      if (indexAdvisor != null) {
+        indexAdvisor.record(ms.getId(), boundSql.getSql(), plan, policies.resolve(ms).getSamplingWeight());
       }
+      if (planDivergenceTracker != null
+          && planDivergenceTracker.record(ms.getId(), bindValues(configuration, parameter, boundSql), plan)) {
+        planLog.debug("<== ExplainPlan: Plan differs from earlier executions with other parameters");
+      }
+      return plan;
+    } catch (SessionRestoreException e) {
+      throw e;
     } catch (Exception e) {
-      statementLog.debug("<== ExplainPlan: Failed to execute EXPLAIN: " + e.getMessage());
+      planLog.debug("<== ExplainPlan: Failed to execute EXPLAIN: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Restores the connection after EXPLAIN. A connection that cannot be restored (for example one left in SQL Server
+   * showplan mode, where statements are compiled but not executed) must not be used again: it is aborted, so the pool
+   * discards it, and the failure is propagated to the caller instead of being logged like other EXPLAIN failures.
+   */
+  private static void restore(ExplainDialect dialect, Connection connection) {
+    try {
+      dialect.afterExplain(connection);
+    } catch (SQLException e) {
+      SessionRestoreException failure = new SessionRestoreException(e);
+      try {
+        connection.abort(Runnable::run);
+      } catch (SQLException | RuntimeException abortFailure) {
+        failure.addSuppressed(abortFailure);
+      }
+      throw failure;
     }
   }
 
   @Override
   public void setProperties(Properties properties) {
-    // no properties needed
+    policies = ExplainPolicies.parse(properties);
+    analyze = Boolean.parseBoolean(properties.getProperty("analyze"));
+    jsonFormat = "json".equalsIgnoreCase(properties.getProperty("format"));
+    if (indexAdvisorShutdownHook != null) {
+      Runtime.getRuntime().removeShutdownHook(indexAdvisorShutdownHook);
+      indexAdvisorShutdownHook = null;
+    }
+    if (Boolean.parseBoolean(properties.getProperty("indexAdvisor"))) {
+      indexAdvisor = new IndexAdvisor();
+      if (Boolean.parseBoolean(properties.getProperty("indexAdvisor.reportOnShutdown"))) {
+        indexAdvisorShutdownHook = indexAdvisor.newShutdownHook();
+        Runtime.getRuntime().addShutdownHook(indexAdvisorShutdownHook);
+      }
+    } else {
+      indexAdvisor = null;
+    }
+    planDivergenceTracker = Boolean.parseBoolean(properties.getProperty("planDivergence"))
+        ? new PlanDivergenceTracker() : null;
+    if (heavyStatementTracker != null) {
+      heavyStatementTracker.stopReporting();
+    }
+    if (Boolean.parseBoolean(properties.getProperty("heavyStatements"))) {
+      HeavyStatementTracker tracker = new HeavyStatementTracker(
+          Integer.parseInt(properties.getProperty("heavyStatements.capacity", "256")),
+          HeavyStatementTracker.Weight.valueOf(
+              properties.getProperty("heavyStatements.weight", "latency").toUpperCase(Locale.ROOT)));
+      long interval = Long.parseLong(properties.getProperty("heavyStatements.logInterval", "0"));
+      if (interval > 0) {
+        tracker.startReporting(Integer.parseInt(properties.getProperty("heavyStatements.topK", "10")), interval,
+            TimeUnit.SECONDS);
+      }
+      heavyStatementTracker = tracker;
+    } else {
+      heavyStatementTracker = null;
+    }
+  }
+
+  /**
+   * Returns the index advisor fed by this interceptor.
+   *
+   * @return the advisor, or {@code null} if the {@code indexAdvisor} property is not enabled
+   */
+  public IndexAdvisor getIndexAdvisor() {
+    return indexAdvisor;
+  }
+
+  /**
+   * Returns the tracker of parameter-sensitive plans fed by this interceptor.
+   *
+   * @return the tracker, or {@code null} if the {@code planDivergence} property is not enabled
+   */
+  public PlanDivergenceTracker getPlanDivergenceTracker() {
+    return planDivergenceTracker;
+  }
+
+  /**
+   * Returns the tracker of the heaviest statements fed by this interceptor.
+   *
+   * @return the tracker, or {@code null} if the {@code heavyStatements} property is not enabled
+   */
+  public HeavyStatementTracker getHeavyStatementTracker() {
+    return heavyStatementTracker;
+  }
+
+  /**
+   * Resolves the bind values the way {@link org.apache.ibatis.scripting.defaults.DefaultParameterHandler} does.
+   */
+  static List<Object> bindValues(Configuration configuration, Object parameter, BoundSql boundSql) {
+    List<Object> values = new ArrayList<>();
+    MetaObject metaObject = null;
+    for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+      if (mapping.getMode() == ParameterMode.OUT) {
+        continue;
+      }
+      String property = mapping.getProperty();
+      if (boundSql.hasAdditionalParameter(property)) {
+        values.add(boundSql.getAdditionalParameter(property));
+      } else if (parameter == null) {
+        values.add(null);
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+        values.add(parameter);
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameter);
+        }
+        values.add(metaObject.getValue(property));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * A connection that could not be restored after EXPLAIN.
+   */
+  private static final class SessionRestoreException extends ExecutorException {
+    private static final long serialVersionUID = 1L;
+
+    private SessionRestoreException(SQLException cause) {
+      super("Failed to restore the connection after EXPLAIN; the connection was aborted: " + cause.getMessage(), cause);
+    }
   }
 }
@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed execution plan: the lines to log, the operator trees of each statement and any missing-index hints.
+ */
+public final class ExplainPlan {
+
+  private final List<String> lines;
+  private final List<PlanNode> roots;
+  private final List<MissingIndex> missingIndexes;
+
+  /**
+   * Creates a plan whose log lines are rendered from the operator trees and missing-index hints.
+   *
+   * @param roots the root operators, one per explained statement
+   * @param missingIndexes the missing-index hints
+   */
+  public ExplainPlan(List<PlanNode> roots, List<MissingIndex> missingIndexes) {
+    this(render(roots, missingIndexes), roots, missingIndexes);
+  }
+
+  /**
+   * Creates a plan that logs the database output as-is.
+   *
+   * @param lines the lines to log
+   * @param roots the root operators parsed from the output
+   * @param missingIndexes the missing-index hints
+   */
+  public ExplainPlan(List<String> lines, List<PlanNode> roots, List<MissingIndex> missingIndexes) {
+    this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+    this.roots = Collections.unmodifiableList(new ArrayList<>(roots));
+    this.missingIndexes = Collections.unmodifiableList(new ArrayList<>(missingIndexes));
+  }
+
+  /**
+   * Returns the root operators, one per explained statement.
+   *
+   * @return an unmodifiable list of root operators
+   */
+  public List<PlanNode> getRoots() {
+    return roots;
+  }
+
+  /**
+   * Returns the missing-index hints reported by the optimizer.
+   *
+   * @return an unmodifiable list of missing-index hints
+   */
+  public List<MissingIndex> getMissingIndexes() {
+    return missingIndexes;
+  }
+
+  /**
+   * Returns the total estimated cost of the root operators.
+   *
+   * @return the estimated cost, or {@link Double#NaN} if no root reports a cost
+   */
+  public double getEstimatedCost() {
+    double total = Double.NaN;
+    for (PlanNode root : roots) {
+      double cost = root.getEstimatedCost();
+      if (!Double.isNaN(cost)) {
+        total = Double.isNaN(total) ? cost : total + cost;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the lines to log: the database output, or one line per operator indented by depth
+   * followed by the missing-index hints.
+   *
+   * @return an unmodifiable list of lines
+   */
+  public List<String> toLines() {
+    return lines;
+  }
+
+  private static List<String> render(List<PlanNode> roots, List<MissingIndex> missingIndexes) {
+    List<String> lines = new ArrayList<>();
+    for (PlanNode root : roots) {
+      appendLines(root, "", lines);
+    }
+    for (MissingIndex missingIndex : missingIndexes) {
+      lines.add(missingIndex.toString());
+    }
+    return lines;
+  }
+
+  private static void appendLines(PlanNode node, String indent, List<String> lines) {
+    lines.add(indent + node);
+    for (PlanNode child : node.getChildren()) {
+      appendLines(child, indent + "  ", lines);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Per-statement explain policies.
+ * <p>
+ * Rules are read from {@code policy.<n>.*} properties, optionally from a {@code policyFile} (a properties file on
+ * the classpath with the {@code classpath:} prefix, otherwise on the file system; inline properties override it).
+ * They are compiled once and evaluated in ascending {@code <n>} order, the first matching rule winning
+ * ({@code <n>} is read as a number, so {@code policy.1.*} and {@code policy.01.*} are the same rule and may not both
+ * be given):
+ * <ul>
+ *   <li>{@code policy.<n>.action} - {@code always}, {@code never}, {@code sample} or {@code default}
+ *       (explain when the statement log is DEBUG). Required; defines the rule.</li>
+ *   <li>{@code policy.<n>.rate} - fraction of executions explained by {@code sample}, in [0, 1]. Required for
+ *       {@code sample}.</li>
+ *   <li>{@code policy.<n>.id} - glob ({@code *}, {@code ?}) or {@code regex:} pattern on the statement id.</li>
+ *   <li>{@code policy.<n>.command} - comma-separated {@code SqlCommandType} names.</li>
+ *   <li>{@code policy.<n>.databaseId} - glob or {@code regex:} pattern on the databaseId (case-insensitive).</li>
+ * </ul>
+ * The policy resolved for a {@link MappedStatement} is memoized in an identity-keyed, copy-on-write map, so after
+ * the first execution the per-call decision is a single lookup.
+ */
+final class ExplainPolicies {
+
+  static final ExplainPolicies NONE = new ExplainPolicies(Collections.<ExplainRule>emptyList());
+
+  private static final Pattern RULE_ACTION = Pattern.compile("policy\\.(\\d+)\\.action");
+  private static final String CLASSPATH_PREFIX = "classpath:";
+
+  private final List<ExplainRule> rules;
+  private volatile Map<MappedStatement, ExplainPolicy> resolved = new IdentityHashMap<>();
+
+  ExplainPolicies(List<ExplainRule> rules) {
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+  }
+
+  List<ExplainRule> getRules() {
+    return rules;
+  }
+
+  /**
+   * Returns the policy of the first rule matching the statement, or {@link ExplainPolicy#DEFAULT}.
+   *
+   * @param ms the mapped statement
+   * @return the policy
+   */
+  ExplainPolicy resolve(MappedStatement ms) {
+    if (rules.isEmpty()) {
+      return ExplainPolicy.DEFAULT;
+    }
+    ExplainPolicy policy = resolved.get(ms);
+    if (policy == null) {
+      policy = evaluate(ms);
+      synchronized (this) {
+        Map<MappedStatement, ExplainPolicy> copy = new IdentityHashMap<>(resolved);
+        copy.put(ms, policy);
+        resolved = copy;
+      }
+    }
+    return policy;
+  }
+
+  private ExplainPolicy evaluate(MappedStatement ms) {
+    for (ExplainRule rule : rules) {
+      if (rule.matches(ms)) {
+        return rule.getPolicy();
+      }
+    }
+    return ExplainPolicy.DEFAULT;
+  }
+
+  /**
+   * Compiles the rules of the interceptor properties.
+   *
+   * @param properties the interceptor properties
+   * @return the policies, {@link #NONE} when no rule is configured
+   * @throws IllegalArgumentException if a rule is invalid or the policy file cannot be read
+   */
+  static ExplainPolicies parse(Properties properties) {
+    Properties merged = new Properties();
+    String file = properties.getProperty("policyFile");
+    if (file != null) {
+      merged.putAll(load(file));
+    }
+    merged.putAll(properties);
+    Map<Integer, ExplainRule> rules = new TreeMap<>();
+    for (String name : merged.stringPropertyNames()) {
+      Matcher matcher = RULE_ACTION.matcher(name);
+      if (matcher.matches()) {
+        String prefix = "policy." + matcher.group(1) + ".";
+        if (rules.put(Integer.parseInt(matcher.group(1)), rule(merged, prefix)) != null) {
+          throw new IllegalArgumentException("Invalid explain policy " + prefix + "*: duplicate rule number");
+        }
+      }
+    }
+    return rules.isEmpty() ? NONE : new ExplainPolicies(new ArrayList<>(rules.values()));
+  }
+
+  private static ExplainRule rule(Properties properties, String prefix) {
+    String action = properties.getProperty(prefix + "action");
+    String rateValue = properties.getProperty(prefix + "rate");
+    try {
+      ExplainPolicy.Action parsed = ExplainPolicy.Action.valueOf(action.trim().toUpperCase(Locale.ROOT));
+      if (parsed == ExplainPolicy.Action.SAMPLE && rateValue == null) {
+        throw new IllegalArgumentException("rate is required for sample");
+      }
+      double rate = rateValue == null ? 1 : Double.parseDouble(rateValue);
+      if (!(rate >= 0 && rate <= 1)) {
+        throw new IllegalArgumentException("rate must be between 0 and 1: " + rate);
+      }
+      ExplainPolicy policy = new ExplainPolicy(parsed, rate);
+      return new ExplainRule(
+          ExplainRule.compile(properties.getProperty(prefix + "id"), 0),
+          ExplainRule.commands(properties.getProperty(prefix + "command")),
+          ExplainRule.compile(properties.getProperty(prefix + "databaseId"), Pattern.CASE_INSENSITIVE),
+          policy);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid explain policy " + prefix + "*: " + e.getMessage(), e);
+    }
+  }
+
+  private static Properties load(String file) {
+    Properties properties = new Properties();
+    try (InputStream in = file.startsWith(CLASSPATH_PREFIX)
+        ? Resources.getResourceAsStream(file.substring(CLASSPATH_PREFIX.length()))
+        : Files.newInputStream(Paths.get(file))) {
+      properties.load(in);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot read explain policy file " + file + ": " + e.getMessage(), e);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.ibatis.logging.Log;
+
+/**
+ * Whether a statement is explained, as resolved by {@link ExplainPolicies}.
+ */
+final class ExplainPolicy {
+
+  /**
+   * What to do with the statements matching a rule.
+   */
+  enum Action {
+    /** Explain when the statement log is DEBUG (the behavior without rules). */
+    DEFAULT,
+    /** Always explain. */
+    ALWAYS,
+    /** Never explain. */
+    NEVER,
+    /** Explain a random fraction of the executions. */
+    SAMPLE
+  }
+
+  static final ExplainPolicy DEFAULT = new ExplainPolicy(Action.DEFAULT, 1);
+
+  private final Action action;
+  private final double rate;
+
+  ExplainPolicy(Action action, double rate) {
+    this.action = action;
+    this.rate = rate;
+  }
+
+  Action getAction() {
+    return action;
+  }
+
+  double getRate() {
+    return rate;
+  }
+
+  /**
+   * Returns how many executions each explained one stands for: {@code 1 / rate} when sampling, else 1.
+   */
+  double getSamplingWeight() {
+    return action == Action.SAMPLE ? 1 / rate : 1;
+  }
+
+  boolean shouldExplain(Log statementLog) {
+    switch (action) {
+      case ALWAYS:
+        return true;
+      case NEVER:
+        return false;
+      case SAMPLE:
+        return ThreadLocalRandom.current().nextDouble() < rate;
+      default:
+        return statementLog.isDebugEnabled();
+    }
+  }
+}
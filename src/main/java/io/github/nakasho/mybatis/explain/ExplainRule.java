@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+
+/**
+ * A compiled explain rule: statement id, command type and databaseId matchers with the resulting policy.
+ * Unset matchers match every statement.
+ */
+final class ExplainRule {
+
+  private static final String REGEX_PREFIX = "regex:";
+
+  private final Pattern id;
+  private final Set<SqlCommandType> commands;
+  private final Pattern databaseId;
+  private final ExplainPolicy policy;
+
+  ExplainRule(Pattern id, Set<SqlCommandType> commands, Pattern databaseId, ExplainPolicy policy) {
+    this.id = id;
+    this.commands = commands;
+    this.databaseId = databaseId;
+    this.policy = policy;
+  }
+
+  ExplainPolicy getPolicy() {
+    return policy;
+  }
+
+  boolean matches(MappedStatement ms) {
+    return (id == null || id.matcher(ms.getId()).matches())
+        && (commands == null || commands.contains(ms.getSqlCommandType()))
+        && (databaseId == null || ms.getDatabaseId() != null && databaseId.matcher(ms.getDatabaseId()).matches());
+  }
+
+  /**
+   * Compiles a glob ({@code *} any characters, {@code ?} one character) or, with the {@code regex:} prefix,
+   * a regular expression.
+   *
+   * @param expression the glob or prefixed regular expression, or {@code null}
+   * @param flags the {@link Pattern} flags
+   * @return the pattern, or {@code null} if {@code expression} is {@code null}
+   */
+  static Pattern compile(String expression, int flags) {
+    if (expression == null) {
+      return null;
+    }
+    if (expression.startsWith(REGEX_PREFIX)) {
+      return Pattern.compile(expression.substring(REGEX_PREFIX.length()), flags);
+    }
+    StringBuilder regex = new StringBuilder();
+    int start = 0;
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (c == '*' || c == '?') {
+        regex.append(Pattern.quote(expression.substring(start, i))).append(c == '*' ? ".*" : ".");
+        start = i + 1;
+      }
+    }
+    regex.append(Pattern.quote(expression.substring(start)));
+    return Pattern.compile(regex.toString(), flags);
+  }
+
+  /**
+   * Parses a comma-separated list of {@link SqlCommandType} names (case-insensitive).
+   *
+   * @param value the list, or {@code null}
+   * @return the command types, or {@code null} if {@code value} is {@code null}
+   */
+  static Set<SqlCommandType> commands(String value) {
+    if (value == null) {
+      return null;
+    }
+    Set<SqlCommandType> commands = EnumSet.noneOf(SqlCommandType.class);
+    for (String name : value.split(",")) {
+      commands.add(SqlCommandType.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+    }
+    return commands;
+  }
+}
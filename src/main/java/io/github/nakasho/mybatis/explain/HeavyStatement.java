@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+/**
+ * A statement monitored by the {@link HeavyStatementTracker}.
+ * <p>
+ * Like any space-saving counter, the weight may overestimate the true weight by at most {@link #getError()};
+ * the call count, time and cost cover the executions since the statement was last admitted to the sketch.
+ */
+public final class HeavyStatement {
+
+  private final String statementId;
+  private final String sql;
+  private final double weight;
+  private final double error;
+  private final long calls;
+  private final long totalTimeNanos;
+  private final double totalEstimatedCost;
+  private final long explainedCalls;
+
+  HeavyStatement(String statementId, String sql, double weight, double error, long calls, long totalTimeNanos,
+      double totalEstimatedCost, long explainedCalls) {
+    this.statementId = statementId;
+    this.sql = sql;
+    this.weight = weight;
+    this.error = error;
+    this.calls = calls;
+    this.totalTimeNanos = totalTimeNanos;
+    this.totalEstimatedCost = totalEstimatedCost;
+    this.explainedCalls = explainedCalls;
+  }
+
+  /**
+   * Returns the mapped statement id.
+   *
+   * @return the statement id
+   */
+  public String getStatementId() {
+    return statementId;
+  }
+
+  /**
+   * Returns the SQL fingerprint: whitespace collapsed and parameter lists shortened to {@code ?, ...}.
+   *
+   * @return the SQL fingerprint
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * Returns the ranking weight: execution nanoseconds or estimated plan cost, depending on the tracker.
+   *
+   * @return the weight, an upper bound of the true weight
+   */
+  public double getWeight() {
+    return weight;
+  }
+
+  /**
+   * Returns the maximum overestimation of {@link #getWeight()}.
+   *
+   * @return the error bound
+   */
+  public double getError() {
+    return error;
+  }
+
+  /**
+   * Returns the number of executions.
+   *
+   * @return the call count
+   */
+  public long getCalls() {
+    return calls;
+  }
+
+  /**
+   * Returns the total execution time of the original statement.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getTotalTimeNanos() {
+    return totalTimeNanos;
+  }
+
+  /**
+   * Returns the average estimated plan cost over the explained executions.
+   *
+   * @return the average cost, or {@link Double#NaN} if no execution was explained with a cost
+   */
+  public double getAverageEstimatedCost() {
+    return explainedCalls == 0 ? Double.NaN : totalEstimatedCost / explainedCalls;
+  }
+
+  @Override
+  public String toString() {
+    return statementId + " weight=" + weight + " (error=" + error + ") calls=" + calls
+        + " timeMs=" + totalTimeNanos / 1_000_000 + " avgCost=" + getAverageEstimatedCost() + " sql=" + sql;
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+
+/**
+ * Fixed-memory tracker of the heaviest statements (space-saving sketch).
+ * <p>
+ * Statements are keyed by mapped statement id and SQL fingerprint, so every dynamic SQL shape is counted
+ * separately. At most {@code capacity} statements are monitored.
+ * <p>
+ * The counters are split into stripes selected by key hash, each with its own lock and its own share of the
+ * capacity, so concurrent executions of different statements rarely contend and no update takes a global lock.
+ * Each stripe is an independent sketch: when a new statement arrives and its stripe is full, it replaces the
+ * lightest statement of that stripe and inherits its weight as error bound. The guarantee therefore holds per
+ * stripe: a statement heavier than {@code stripe weight / stripe capacity} is monitored. A statement heavier than
+ * {@code total weight / capacity} can still be evicted when its stripe receives more than its share of the load.
+ */
+public final class HeavyStatementTracker {
+
+  private static final int MAX_STRIPES = 16;
+  private static final int MIN_STRIPE_CAPACITY = 8;
+
+  /**
+   * What the ranking weight measures.
+   */
+  public enum Weight {
+    /** Execution time of the original statement. */
+    LATENCY,
+    /** Estimated cost of the plan; only explained executions are recorded. */
+    COST
+  }
+
+  private final Weight weight;
+  private final Log reportLog;
+  private final Stripe[] stripes;
+  private volatile Map<MappedStatement, String> staticFingerprints = new IdentityHashMap<>();
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a tracker.
+   *
+   * @param capacity the number of statements monitored
+   * @param weight what the ranking weight measures
+   */
+  public HeavyStatementTracker(int capacity, Weight weight) {
+    this(capacity, weight, LogFactory.getLog(HeavyStatementTracker.class));
+  }
+
+  HeavyStatementTracker(int capacity, Weight weight, Log reportLog) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.weight = weight;
+    this.reportLog = reportLog;
+    int stripeCount = Math.max(1, Math.min(MAX_STRIPES, capacity / MIN_STRIPE_CAPACITY));
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0));
+    }
+  }
+
+  Weight getWeight() {
+    return weight;
+  }
+
+  /**
+   * Records one execution. With the {@code cost} weight, executions that were not explained are ignored.
+   *
+   * @param statementId the mapped statement id
+   * @param sql the executed SQL
+   * @param elapsedNanos the execution time of the original statement
+   * @param estimatedCost the estimated plan cost, or {@link Double#NaN} if the execution was not explained
+   */
+  public void record(String statementId, String sql, long elapsedNanos, double estimatedCost) {
+    if (weight == Weight.COST && Double.isNaN(estimatedCost)) {
+      return;
+    }
+    add(statementId, fingerprint(sql), elapsedNanos, estimatedCost);
+  }
+
+  /**
+   * Records one execution of a mapped statement. The fingerprint of a raw or static SQL source, whose SQL does not
+   * depend on the parameter, is computed once per statement; other sources are fingerprinted from
+   * {@code boundSql}, built from {@code parameter} only when the caller has none (rendering dynamic SQL again, so
+   * callers should pass the SQL that was executed whenever they have it).
+   *
+   * @param ms the mapped statement
+   * @param parameter the statement parameter
+   * @param boundSql the executed SQL, or {@code null} if it has not been built
+   * @param elapsedNanos the execution time of the original statement
+   * @param estimatedCost the estimated plan cost, or {@link Double#NaN} if the execution was not explained
+   */
+  void record(MappedStatement ms, Object parameter, BoundSql boundSql, long elapsedNanos, double estimatedCost) {
+    if (weight == Weight.COST && Double.isNaN(estimatedCost)) {
+      return;
+    }
+    SqlSource source = ms.getSqlSource();
+    String fingerprint;
+    if (source instanceof RawSqlSource || source instanceof StaticSqlSource) {
+      fingerprint = staticFingerprints.get(ms);
+      if (fingerprint == null) {
+        fingerprint = fingerprint((boundSql == null ? ms.getBoundSql(parameter) : boundSql).getSql());
+        synchronized (this) {
+          Map<MappedStatement, String> copy = new IdentityHashMap<>(staticFingerprints);
+          copy.put(ms, fingerprint);
+          staticFingerprints = copy;
+        }
+      }
+    } else {
+      fingerprint = fingerprint((boundSql == null ? ms.getBoundSql(parameter) : boundSql).getSql());
+    }
+    add(ms.getId(), fingerprint, elapsedNanos, estimatedCost);
+  }
+
+  private void add(String statementId, String fingerprint, long elapsedNanos, double estimatedCost) {
+    double amount = weight == Weight.LATENCY ? elapsedNanos : estimatedCost;
+    String key = statementId + '\n' + fingerprint;
+    stripes[(key.hashCode() & Integer.MAX_VALUE) % stripes.length]
+        .add(key, statementId, fingerprint, amount, elapsedNanos, estimatedCost);
+  }
+
+  /**
+   * Returns the heaviest monitored statements.
+   *
+   * @param k the number of statements to return
+   * @return up to {@code k} statements, heaviest first
+   */
+  public List<HeavyStatement> getTop(int k) {
+    List<HeavyStatement> all = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      stripe.snapshot(all);
+    }
+    all.sort(Comparator.comparingDouble(HeavyStatement::getWeight).reversed()
+        .thenComparing(HeavyStatement::getStatementId));
+    return new ArrayList<>(all.subList(0, Math.min(k, all.size())));
+  }
+
+  /**
+   * Renders the heaviest statements, one per line.
+   *
+   * @param k the number of statements to render
+   * @return the report
+   */
+  public String report(int k) {
+    List<HeavyStatement> top = getTop(k);
+    StringBuilder sb = new StringBuilder("Heavy statements by ").append(weight.name().toLowerCase(Locale.ROOT))
+        .append(": top ").append(top.size());
+    int rank = 1;
+    for (HeavyStatement statement : top) {
+      sb.append(System.lineSeparator()).append(rank++).append(". ").append(statement);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Logs the top {@code k} statements at DEBUG every {@code period} on a daemon thread,
+   * replacing any previous schedule.
+   *
+   * @param k the number of statements to log
+   * @param period the period between reports
+   * @param unit the unit of {@code period}
+   */
+  public synchronized void startReporting(int k, long period, TimeUnit unit) {
+    stopReporting();
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-explain-heavy-statements");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(() -> reportLog.debug(report(k)), period, period, unit);
+  }
+
+  /**
+   * Stops the periodic report, if any.
+   */
+  public synchronized void stopReporting() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  synchronized boolean isReporting() {
+    return scheduler != null;
+  }
+
+  /**
+   * Collapses whitespace and shortens parameter lists, so {@code IN} lists of any length share a fingerprint.
+   * A single scan without regular expressions, since it runs for every execution of dynamic SQL.
+   */
+  static String fingerprint(String sql) {
+    int length = sql.length();
+    StringBuilder sb = new StringBuilder(length);
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i = skipWhitespace(sql, i);
+        if (sb.length() > 0 && i < length) {
+          sb.append(' ');
+        }
+      } else if (c == '?') {
+        int end = endOfParameterList(sql, i);
+        sb.append(end > i + 1 ? "?, ..." : "?");
+        i = end;
+      } else {
+        sb.append(c);
+        i++;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static int skipWhitespace(String sql, int index) {
+    int i = index;
+    while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the index after the {@code ?, ?, ...} list starting at {@code start}, or after the single {@code ?}.
+   */
+  private static int endOfParameterList(String sql, int start) {
+    int end = start + 1;
+    for (;;) {
+      int comma = skipWhitespace(sql, end);
+      if (comma == sql.length() || sql.charAt(comma) != ',') {
+        return end;
+      }
+      int next = skipWhitespace(sql, comma + 1);
+      if (next == sql.length() || sql.charAt(next) != '?') {
+        return end;
+      }
+      end = next + 1;
+    }
+  }
+
+  private static final class Counter {
+    private final String statementId;
+    private final String sql;
+    private final double error;
+    private double weight;
+    private long calls;
+    private long totalTimeNanos;
+    private double totalEstimatedCost;
+    private long explainedCalls;
+
+    private Counter(String statementId, String sql, double error) {
+      this.statementId = statementId;
+      this.sql = sql;
+      this.error = error;
+      this.weight = error;
+    }
+  }
+
+  /**
+   * One independently locked space-saving sketch. Eviction scans for the lightest counter,
+   * which is cheap since a stripe holds only a few counters.
+   */
+  private static final class Stripe {
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    private Stripe(int capacity) {
+      this.capacity = capacity;
+    }
+
+    private synchronized void add(String key, String statementId, String sql, double amount, long elapsedNanos,
+        double estimatedCost) {
+      Counter counter = counters.get(key);
+      if (counter == null) {
+        double error = 0;
+        if (counters.size() >= capacity) {
+          Map.Entry<String, Counter> lightest = null;
+          for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (lightest == null || entry.getValue().weight < lightest.getValue().weight) {
+              lightest = entry;
+            }
+          }
+          counters.remove(lightest.getKey());
+          error = lightest.getValue().weight;
+        }
+        counter = new Counter(statementId, sql, error);
+        counters.put(key, counter);
+      }
+      counter.weight += amount;
+      counter.calls++;
+      counter.totalTimeNanos += elapsedNanos;
+      if (!Double.isNaN(estimatedCost)) {
+        counter.totalEstimatedCost += estimatedCost;
+        counter.explainedCalls++;
+      }
+    }
+
+    private synchronized void snapshot(List<HeavyStatement> target) {
+      for (Counter counter : counters.values()) {
+        target.add(new HeavyStatement(counter.statementId, counter.sql, counter.weight, counter.error,
+            counter.calls, counter.totalTimeNanos, counter.totalEstimatedCost, counter.explainedCalls));
+      }
+    }
+  }
+}
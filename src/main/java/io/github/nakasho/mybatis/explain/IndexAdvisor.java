@@ -0,0 +1,235 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Aggregates explained statements into a ranked backlog of composite indexes.
+ * <p>
+ * For every table a plan reads with a full scan, or sorts for {@code ORDER BY}, the columns the SQL uses in
+ * equality predicates, ordering and range predicates (in that order) form a candidate index. Join keys
+ * ({@code a.x = b.y}) follow the equality columns only when the scanned table is the inner side of a nested loop;
+ * for hash and merge joins, which read each side once, they are left out. Candidates are
+ * accumulated across statements and ranked by the estimated cost of the avoided scans and sorts times the number
+ * of calls. Costs come from the plan; when the database reports none, estimated rows are used instead.
+ * Tables named by their alias in the plan (as MySQL does) are resolved through the aliases of the SQL.
+ * Updates are lock-free, so the advisor can be fed from every executing thread.
+ */
+public final class IndexAdvisor {
+
+  private static final Log log = LogFactory.getLog(IndexAdvisor.class);
+
+  private static final Set<String> FULL_SCANS = Set.of(
+      "seq scan", "parallel seq scan", "all", "table scan", "clustered index scan", "tbscan", "table access full");
+  private static final Set<String> NESTED_LOOPS = Set.of("nested loop", "nested loops", "nljoin");
+
+  private final ConcurrentMap<String, Accumulator> candidates = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an empty advisor.
+   */
+  public IndexAdvisor() {
+    // default constructor
+  }
+
+  /**
+   * Records one explained execution.
+   *
+   * @param statementId the mapped statement id
+   * @param sql the executed SQL
+   * @param plan the plan of the SQL
+   */
+  public void record(String statementId, String sql, ExplainPlan plan) {
+    record(statementId, sql, plan, 1);
+  }
+
+  /**
+   * Records one explained execution standing for {@code weight} executions, e.g. {@code 1 / rate} when only a
+   * sample of the executions is explained, so sampled statements are not under-ranked.
+   *
+   * @param statementId the mapped statement id
+   * @param sql the executed SQL
+   * @param plan the plan of the SQL
+   * @param weight the number of executions this one represents, at least 1
+   * @throws IllegalArgumentException if {@code weight} is less than 1
+   */
+  public void record(String statementId, String sql, ExplainPlan plan, double weight) {
+    if (!(weight >= 1)) {
+      throw new IllegalArgumentException("weight must be at least 1: " + weight);
+    }
+    Map<String, Double> scanCosts = new HashMap<>();
+    Set<String> innerScans = new HashSet<>();
+    double[] sortCost = {0};
+    for (PlanNode root : plan.getRoots()) {
+      collect(root, false, scanCosts, innerScans, sortCost);
+    }
+    if (scanCosts.isEmpty() && sortCost[0] == 0) {
+      return;
+    }
+    SqlPredicateExtractor.Result statement = SqlPredicateExtractor.analyze(sql);
+    Map<String, Double> tableScanCosts = new HashMap<>();
+    for (Map.Entry<String, Double> scan : scanCosts.entrySet()) {
+      tableScanCosts.merge(statement.resolveTable(scan.getKey()), scan.getValue(), Double::sum);
+    }
+    Set<String> innerTables = new HashSet<>();
+    for (String scan : innerScans) {
+      innerTables.add(statement.resolveTable(scan));
+    }
+    for (Map.Entry<String, SqlPredicateExtractor.TableColumns> entry : statement.getColumns().entrySet()) {
+      String table = entry.getKey();
+      SqlPredicateExtractor.TableColumns columns = entry.getValue();
+      Double scanCost = tableScanCosts.get(table);
+      boolean sorted = sortCost[0] > 0 && !columns.getOrderBy().isEmpty();
+      Set<String> indexColumns = new LinkedHashSet<>(columns.getEquality());
+      if (innerTables.contains(table)) {
+        indexColumns.addAll(columns.getJoin());
+      }
+      if (sorted) {
+        indexColumns.addAll(columns.getOrderBy());
+      }
+      if (scanCost != null && !columns.getRange().isEmpty()) {
+        indexColumns.add(columns.getRange().iterator().next());
+      }
+      double saved = (scanCost == null ? 0 : scanCost) + (sorted ? sortCost[0] : 0);
+      if (saved > 0 && !indexColumns.isEmpty()) {
+        List<String> key = new ArrayList<>(indexColumns);
+        candidates.computeIfAbsent(table + key, k -> new Accumulator(table, key))
+            .add(statementId, saved, weight);
+      }
+    }
+  }
+
+  /**
+   * Returns the candidates ranked by score, highest first.
+   *
+   * @return a snapshot of the candidates
+   */
+  public List<IndexCandidate> getCandidates() {
+    List<IndexCandidate> snapshot = new ArrayList<>();
+    for (Accumulator accumulator : candidates.values()) {
+      snapshot.add(accumulator.toCandidate());
+    }
+    snapshot.sort(Comparator.comparingDouble(IndexCandidate::getScore).reversed()
+        .thenComparing(candidate -> candidate.toCreateIndexSql()));
+    return snapshot;
+  }
+
+  /**
+   * Renders the ranked candidates, one per line.
+   *
+   * @return the report
+   */
+  public String report() {
+    List<IndexCandidate> ranked = getCandidates();
+    StringBuilder sb = new StringBuilder("Index advisor: ").append(ranked.size()).append(" candidate(s)");
+    int rank = 1;
+    for (IndexCandidate candidate : ranked) {
+      sb.append(System.lineSeparator()).append(rank++).append(". ").append(candidate);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Discards all recorded executions.
+   */
+  public void reset() {
+    candidates.clear();
+  }
+
+  /**
+   * Creates a thread that logs the report at DEBUG, for {@link Runtime#addShutdownHook(Thread)}.
+   */
+  Thread newShutdownHook() {
+    return new Thread(() -> log.debug(report()), "mybatis-explain-index-advisor");
+  }
+
+  /**
+   * Collects the full scans and sorts of a subtree; {@code inner} tells whether it is the inner side of a nested
+   * loop, i.e. executed once per outer row, where an index on the join key would replace the scan.
+   */
+  private static void collect(PlanNode node, boolean inner, Map<String, Double> scanCosts, Set<String> innerScans,
+      double[] sortCost) {
+    String operation = node.getOperation().toLowerCase(Locale.ROOT);
+    boolean nestedLoop = NESTED_LOOPS.contains(operation);
+    double childrenCost = 0;
+    for (int i = 0; i < node.getChildren().size(); i++) {
+      PlanNode child = node.getChildren().get(i);
+      collect(child, inner || nestedLoop && i > 0, scanCosts, innerScans, sortCost);
+      childrenCost += child.getEstimatedCost();
+    }
+    boolean sqliteScan = "scan".equals(operation) && node.getIndexName() == null;
+    if ((FULL_SCANS.contains(operation) || sqliteScan) && node.getObjectName() != null) {
+      scanCosts.merge(node.getObjectName(), weight(node, 0), Double::sum);
+      if (inner) {
+        innerScans.add(node.getObjectName());
+      }
+    } else if ("sort".equals(operation) || "filesort".equals(operation) || "sort order by".equals(operation)
+        || operation.startsWith("use temp b-tree for order by")) {
+      sortCost[0] += weight(node, childrenCost);
+    }
+  }
+
+  /**
+   * Returns the operator's own cost (excluding its children when known), else its rows, else 1.
+   */
+  private static double weight(PlanNode node, double childrenCost) {
+    double cost = node.getEstimatedCost();
+    if (!Double.isNaN(cost)) {
+      double own = Double.isNaN(childrenCost) ? cost : cost - childrenCost;
+      return own > 0 ? own : cost;
+    }
+    double rows = node.getEstimatedRows();
+    return Double.isNaN(rows) ? 1 : rows;
+  }
+
+  private static final class Accumulator {
+    private final String table;
+    private final List<String> columns;
+    private final DoubleAdder calls = new DoubleAdder();
+    private final DoubleAdder saved = new DoubleAdder();
+    private final Set<String> statementIds = ConcurrentHashMap.newKeySet();
+
+    private Accumulator(String table, List<String> columns) {
+      this.table = table;
+      this.columns = columns;
+    }
+
+    private void add(String statementId, double cost, double weight) {
+      calls.add(weight);
+      saved.add(cost * weight);
+      statementIds.add(statementId);
+    }
+
+    private IndexCandidate toCandidate() {
+      return new IndexCandidate(table, columns, Math.round(calls.sum()), saved.sum(), statementIds);
+    }
+  }
+}
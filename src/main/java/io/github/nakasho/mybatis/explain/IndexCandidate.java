@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A composite index suggested by the {@link IndexAdvisor}, with the traffic that would have benefited from it.
+ */
+public final class IndexCandidate {
+
+  private final String table;
+  private final List<String> columns;
+  private final long calls;
+  private final double score;
+  private final Set<String> statementIds;
+
+  IndexCandidate(String table, List<String> columns, long calls, double score, Set<String> statementIds) {
+    this.table = table;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    this.calls = calls;
+    this.score = score;
+    this.statementIds = Collections.unmodifiableSet(new TreeSet<>(statementIds));
+  }
+
+  /**
+   * Returns the normalized (unqualified, lower-case) table name.
+   *
+   * @return the table name
+   */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the index columns: equality columns, then ordering columns, then the first range column.
+   *
+   * @return an unmodifiable list of column names
+   */
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns how many executions would have used this index, sampled executions counting for {@code 1 / rate}.
+   *
+   * @return the call count
+   */
+  public long getCalls() {
+    return calls;
+  }
+
+  /**
+   * Returns the average estimated cost of the full scans and sorts the index would avoid, per call.
+   *
+   * @return the estimated cost saved per call
+   */
+  public double getEstimatedCostSaved() {
+    return score / calls;
+  }
+
+  /**
+   * Returns the ranking score: the estimated cost saved per call times the call count.
+   *
+   * @return the score
+   */
+  public double getScore() {
+    return score;
+  }
+
+  /**
+   * Returns the ids of the mapped statements that would benefit.
+   *
+   * @return an unmodifiable, sorted set of statement ids
+   */
+  public Set<String> getStatementIds() {
+    return statementIds;
+  }
+
+  /**
+   * Returns a {@code CREATE INDEX} statement for this candidate.
+   *
+   * @return the DDL
+   */
+  public String toCreateIndexSql() {
+    return "CREATE INDEX idx_" + table + "_" + String.join("_", columns)
+        + " ON " + table + " (" + String.join(", ", columns) + ")";
+  }
+
+  @Override
+  public String toString() {
+    return toCreateIndexSql() + " -- score=" + score + ", calls=" + calls + ", statements=" + statementIds;
+  }
+}
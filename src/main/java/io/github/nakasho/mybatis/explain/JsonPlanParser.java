@@ -0,0 +1,308 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental parser for JSON plans ({@code EXPLAIN (FORMAT JSON)} on PostgreSQL, {@code EXPLAIN FORMAT=JSON} on MySQL).
+ * <p>
+ * The document is consumed character by character from the column's character stream and never materialized:
+ * only the fields describing an operator (type, estimated cost and rows, table and index) are captured,
+ * every other value, including long strings such as conditions, is skipped as it is read.
+ * <p>
+ * An object becomes a {@link PlanNode} when it carries a PostgreSQL {@code Node Type}, is a MySQL
+ * {@code table}/{@code query_block}/{@code *_operation} object, or uses a filesort. Other objects are transparent:
+ * their operators attach to the enclosing operator and their cost (e.g. MySQL {@code cost_info}) is lifted into it.
+ */
+final class JsonPlanParser {
+
+  private static final Set<String> OPERATION_KEYS = Set.of(
+      "query_block", "table", "ordering_operation", "grouping_operation", "duplicates_removal", "union_result");
+
+  private final Reader reader;
+  private long offset;
+  private int lookahead = -2;
+
+  private JsonPlanParser(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Parses a JSON plan.
+   *
+   * @param reader the character stream of the plan column
+   * @return the parsed plan
+   * @throws IOException if the stream cannot be read or is not valid JSON
+   */
+  static ExplainPlan parse(Reader reader) throws IOException {
+    JsonPlanParser parser = new JsonPlanParser(reader instanceof BufferedReader ? reader : new BufferedReader(reader));
+    Frame root = new Frame(null);
+    parser.value(root, null);
+    if (parser.peek() != -1) {
+      throw parser.error("unexpected trailing content");
+    }
+    return new ExplainPlan(root.children, Collections.<MissingIndex>emptyList());
+  }
+
+  private void value(Frame parent, String key) throws IOException {
+    int c = peek();
+    if (c == '{') {
+      object(parent, key);
+    } else if (c == '[') {
+      array(parent, key);
+    } else {
+      scalar(false);
+    }
+  }
+
+  private void object(Frame parent, String key) throws IOException {
+    expect('{');
+    Frame frame = new Frame(key != null && OPERATION_KEYS.contains(key) ? key : null);
+    if (peek() == '}') {
+      read();
+    } else {
+      do {
+        if (peek() != '"') {
+          throw error("expected a field name");
+        }
+        String field = scalar(true);
+        expect(':');
+        int c = peek();
+        if (c != '{' && c != '[' && frame.captures(field)) {
+          frame.set(field, scalar(true));
+        } else {
+          value(frame, field);
+        }
+      } while (separator('}'));
+    }
+    frame.attachTo(parent);
+  }
+
+  private void array(Frame parent, String key) throws IOException {
+    expect('[');
+    if (peek() == ']') {
+      read();
+      return;
+    }
+    do {
+      value(parent, key);
+    } while (separator(']'));
+  }
+
+  /**
+   * Reads a string, number or literal, returning its text when {@code capture} is set.
+   */
+  private String scalar(boolean capture) throws IOException {
+    StringBuilder text = capture ? new StringBuilder() : null;
+    int c = peek();
+    if (c == '"') {
+      read();
+      while ((c = read()) != '"') {
+        if (c == -1) {
+          throw error("unterminated string");
+        }
+        if (c == '\\') {
+          c = escape();
+        }
+        if (text != null) {
+          text.append((char) c);
+        }
+      }
+    } else {
+      int length = 0;
+      while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+        if (c == '{' || c == '[' || c == ':' || c == '"') {
+          throw error("unexpected '" + (char) c + "'");
+        }
+        read();
+        length++;
+        if (text != null) {
+          text.append((char) c);
+        }
+        c = lookahead();
+      }
+      if (length == 0) {
+        throw error("expected a value");
+      }
+    }
+    return text == null ? null : text.toString();
+  }
+
+  private int escape() throws IOException {
+    int c = read();
+    switch (c) {
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+          int digit = Character.digit(read(), 16);
+          if (digit < 0) {
+            throw error("invalid unicode escape");
+          }
+          code = code * 16 + digit;
+        }
+        return code;
+      case '"':
+      case '\\':
+      case '/':
+        return c;
+      default:
+        throw error("invalid escape");
+    }
+  }
+
+  private boolean separator(char close) throws IOException {
+    int c = peek();
+    read();
+    if (c == ',') {
+      return true;
+    }
+    if (c != close) {
+      throw error("expected ',' or '" + close + "'");
+    }
+    return false;
+  }
+
+  private void expect(char expected) throws IOException {
+    if (peek() != expected) {
+      throw error("expected '" + expected + "'");
+    }
+    read();
+  }
+
+  /**
+   * Skips whitespace and returns the next character without consuming it.
+   */
+  private int peek() throws IOException {
+    int c = lookahead();
+    while (c != -1 && Character.isWhitespace(c)) {
+      read();
+      c = lookahead();
+    }
+    return c;
+  }
+
+  private int lookahead() throws IOException {
+    if (lookahead == -2) {
+      lookahead = reader.read();
+    }
+    return lookahead;
+  }
+
+  private int read() throws IOException {
+    int c = lookahead();
+    lookahead = -2;
+    offset++;
+    return c;
+  }
+
+  private IOException error(String message) {
+    return new IOException("Malformed JSON plan at offset " + offset + ": " + message);
+  }
+
+  private static final class Frame {
+    private final String defaultOperation;
+    private final List<PlanNode> children = new ArrayList<>();
+    private String operation;
+    private String objectName;
+    private String indexName;
+    private double estimatedRows = Double.NaN;
+    private double estimatedCost = Double.NaN;
+    private boolean usingFilesort;
+
+    private Frame(String defaultOperation) {
+      this.defaultOperation = defaultOperation;
+    }
+
+    private boolean captures(String field) {
+      switch (field) {
+        case "Node Type":
+        case "access_type":
+        case "Relation Name":
+        case "table_name":
+        case "Index Name":
+        case "key":
+        case "Plan Rows":
+        case "rows_examined_per_scan":
+        case "Total Cost":
+        case "query_cost":
+        case "prefix_cost":
+        case "using_filesort":
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private void set(String field, String value) {
+      switch (field) {
+        case "Node Type":
+        case "access_type":
+          operation = value;
+          break;
+        case "Relation Name":
+        case "table_name":
+          objectName = value;
+          break;
+        case "Index Name":
+        case "key":
+          indexName = value;
+          break;
+        case "Plan Rows":
+        case "rows_examined_per_scan":
+          estimatedRows = AbstractExplainDialect.parseEstimate(value);
+          break;
+        case "using_filesort":
+          usingFilesort = "true".equals(value);
+          break;
+        default:
+          estimatedCost = AbstractExplainDialect.parseEstimate(value);
+          break;
+      }
+    }
+
+    private void attachTo(Frame parent) {
+      if (usingFilesort || operation != null || defaultOperation != null) {
+        String name = usingFilesort ? "filesort" : operation != null ? operation : defaultOperation;
+        parent.children.add(new PlanNode(name, objectName, indexName, estimatedRows, estimatedCost, children));
+        return;
+      }
+      parent.children.addAll(children);
+      if (Double.isNaN(parent.estimatedRows)) {
+        parent.estimatedRows = estimatedRows;
+      }
+      if (Double.isNaN(parent.estimatedCost)) {
+        parent.estimatedCost = estimatedCost;
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index the optimizer reported as missing while compiling the plan (SQL Server missing-index hints).
+ */
+public final class MissingIndex {
+
+  private final String table;
+  private final double impact;
+  private final List<String> equalityColumns;
+  private final List<String> inequalityColumns;
+  private final List<String> includeColumns;
+
+  /**
+   * Creates a missing-index hint.
+   *
+   * @param table the qualified table name
+   * @param impact the estimated improvement in percent, or {@link Double#NaN}
+   * @param equalityColumns the columns used in equality predicates
+   * @param inequalityColumns the columns used in inequality predicates
+   * @param includeColumns the columns suggested for the {@code INCLUDE} clause
+   */
+  public MissingIndex(String table, double impact, List<String> equalityColumns, List<String> inequalityColumns,
+      List<String> includeColumns) {
+    this.table = table;
+    this.impact = impact;
+    this.equalityColumns = Collections.unmodifiableList(new ArrayList<>(equalityColumns));
+    this.inequalityColumns = Collections.unmodifiableList(new ArrayList<>(inequalityColumns));
+    this.includeColumns = Collections.unmodifiableList(new ArrayList<>(includeColumns));
+  }
+
+  /**
+   * Returns the qualified table name, e.g. {@code [shop].[dbo].[orders]}.
+   *
+   * @return the table name
+   */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the estimated improvement in percent reported by the optimizer.
+   *
+   * @return the impact, or {@link Double#NaN} if unknown
+   */
+  public double getImpact() {
+    return impact;
+  }
+
+  /**
+   * Returns the columns used in equality predicates.
+   *
+   * @return an unmodifiable list of column names
+   */
+  public List<String> getEqualityColumns() {
+    return equalityColumns;
+  }
+
+  /**
+   * Returns the columns used in inequality predicates.
+   *
+   * @return an unmodifiable list of column names
+   */
+  public List<String> getInequalityColumns() {
+    return inequalityColumns;
+  }
+
+  /**
+   * Returns the columns suggested for the {@code INCLUDE} clause.
+   *
+   * @return an unmodifiable list of column names
+   */
+  public List<String> getIncludeColumns() {
+    return includeColumns;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("MissingIndex on ").append(table)
+        .append(" (impact=").append(impact).append(')');
+    sb.append(" equality=").append(equalityColumns);
+    sb.append(" inequality=").append(inequalityColumns);
+    sb.append(" include=").append(includeColumns);
+    return sb.toString();
+  }
+}
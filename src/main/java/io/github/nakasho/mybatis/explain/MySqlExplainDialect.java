@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MySQL dialect (also MariaDB and TiDB) issuing {@code EXPLAIN <SQL>}.
+ * Each row of the tabular output becomes a root operator named after its access {@code type};
+ * a row reporting {@code Using filesort} in {@code Extra} is wrapped in a {@code filesort} operator.
+ */
+final class MySqlExplainDialect extends AbstractExplainDialect {
+
+  MySqlExplainDialect() {
+    super("mysql", "EXPLAIN ", List.of("mysql", "mariadb", "tidb"), List.of("MySQL", "MariaDB"));
+  }
+
+  @Override
+  public boolean supportsAnalyze() {
+    return true;
+  }
+
+  @Override
+  public String getAnalyzeSql(String sql) {
+    return "EXPLAIN ANALYZE " + sql;
+  }
+
+  @Override
+  public boolean supportsJsonFormat() {
+    return true;
+  }
+
+  @Override
+  public String getJsonExplainSql(String sql) {
+    return "EXPLAIN FORMAT=JSON " + sql;
+  }
+
+  @Override
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) {
+    int type = indexOf(labels, "type");
+    if (type < 0) {
+      return Collections.emptyList();
+    }
+    int table = indexOf(labels, "table");
+    int key = indexOf(labels, "key");
+    int estimatedRows = indexOf(labels, "rows");
+    int extra = indexOf(labels, "Extra");
+    List<PlanNode> nodes = new ArrayList<>();
+    for (String[] row : rows) {
+      if (row[type] != null) {
+        PlanNode node = new PlanNode(row[type], value(row, table), value(row, key),
+            parseEstimate(value(row, estimatedRows)), Double.NaN, Collections.<PlanNode>emptyList());
+        String extraValue = value(row, extra);
+        if (extraValue != null && extraValue.contains("Using filesort")) {
+          node = new PlanNode("filesort", null, null, node.getEstimatedRows(), Double.NaN, List.of(node));
+        }
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+
+  private static String value(String[] row, int index) {
+    return index < 0 ? null : row[index];
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Oracle dialect issuing {@code EXPLAIN PLAN SET STATEMENT_ID = '<id>' FOR <SQL>}.
+ * {@code EXPLAIN PLAN} returns no rows: the plan is written to {@code PLAN_TABLE}, so the operators are read back
+ * from it with their object and parent operator. Every explain gets a random statement id and is read back by id,
+ * so earlier explains of the session never mix in; the rows are deleted once read.
+ * {@code PLAN_TABLE} is a session-private global temporary table created with the database since Oracle 10g.
+ */
+final class OracleExplainDialect extends AbstractExplainDialect {
+
+  private static final Pattern STATEMENT_ID = Pattern.compile("^EXPLAIN PLAN SET STATEMENT_ID = '(\\w+)' FOR ");
+
+  private static final String PLAN_QUERY = "SELECT ID, OPERATION, OPTIONS, OBJECT_NAME, CARDINALITY, COST, PARENT_ID"
+      + " FROM PLAN_TABLE WHERE STATEMENT_ID = '%s' ORDER BY ID";
+
+  private static final String CLEANUP_SQL = "DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = '%s'";
+
+  OracleExplainDialect() {
+    super("oracle", "EXPLAIN PLAN FOR ", List.of("oracle"), List.of("Oracle"));
+  }
+
+  /**
+   * Tags the explain with a fresh 19-character statement id ({@code STATEMENT_ID} holds 30).
+   */
+  @Override
+  public String getExplainSql(String sql) {
+    String id = String.format(Locale.ROOT, "MBX%016X", ThreadLocalRandom.current().nextLong());
+    return "EXPLAIN PLAN SET STATEMENT_ID = '" + id + "' FOR " + sql;
+  }
+
+  @Override
+  public String getPlanQuery(String explainSql) {
+    return String.format(Locale.ROOT, PLAN_QUERY, statementId(explainSql));
+  }
+
+  @Override
+  public String getPlanCleanupSql(String explainSql) {
+    return String.format(Locale.ROOT, CLEANUP_SQL, statementId(explainSql));
+  }
+
+  private static String statementId(String explainSql) {
+    Matcher matcher = STATEMENT_ID.matcher(explainSql);
+    if (!matcher.find()) {
+      throw new IllegalArgumentException("Not a tagged Oracle explain statement: " + explainSql);
+    }
+    return matcher.group(1);
+  }
+
+  /**
+   * Links the operators through {@code PARENT_ID}; the operator without parent ({@code SELECT STATEMENT}) is the
+   * root. The operation includes its options ({@code TABLE ACCESS FULL}), and {@code COST} is cumulative, so the
+   * plan cost is the root cost.
+   */
+  @Override
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) {
+    Map<String, String[]> operators = new LinkedHashMap<>();
+    Map<String, List<String>> children = new HashMap<>();
+    List<String> roots = new ArrayList<>();
+    for (String[] row : rows) {
+      String id = row[0].trim();
+      operators.put(id, row);
+      if (row[6] == null) {
+        roots.add(id);
+      } else {
+        children.computeIfAbsent(row[6].trim(), key -> new ArrayList<>()).add(id);
+      }
+    }
+    List<PlanNode> nodes = new ArrayList<>(roots.size());
+    for (String root : roots) {
+      nodes.add(node(root, operators, children));
+    }
+    return nodes;
+  }
+
+  private static PlanNode node(String id, Map<String, String[]> operators, Map<String, List<String>> children) {
+    String[] row = operators.get(id);
+    List<PlanNode> inputs = new ArrayList<>();
+    for (String child : children.getOrDefault(id, Collections.<String>emptyList())) {
+      inputs.add(node(child, operators, children));
+    }
+    String operation = row[1].trim();
+    boolean indexAccess = operation.startsWith("INDEX");
+    if (row[2] != null) {
+      operation += " " + row[2].trim();
+    }
+    String objectName = row[3];
+    return new PlanNode(operation, indexAccess ? null : objectName, indexAccess ? objectName : null,
+        parseEstimate(row[4]), parseEstimate(row[5]), inputs);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A statement whose plan changed with its bind values, as reported by {@link PlanDivergenceTracker}.
+ */
+public final class PlanDivergence {
+
+  private final String statementId;
+  private final List<Variant> variants;
+
+  PlanDivergence(String statementId, List<Variant> variants) {
+    this.statementId = statementId;
+    this.variants = Collections.unmodifiableList(new ArrayList<>(variants));
+  }
+
+  /**
+   * Returns the mapped statement id.
+   *
+   * @return the statement id
+   */
+  public String getStatementId() {
+    return statementId;
+  }
+
+  /**
+   * Returns the distinct plans seen for the statement, most executed first.
+   *
+   * @return an unmodifiable list of plan variants
+   */
+  public List<Variant> getVariants() {
+    return variants;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(statementId).append(": ").append(variants.size()).append(" plans");
+    for (Variant variant : variants) {
+      sb.append(System.lineSeparator()).append("  ").append(variant);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * One plan shape of a statement and the parameter buckets that produced it.
+   */
+  public static final class Variant {
+
+    private final String fingerprint;
+    private final long executions;
+    private final Set<String> buckets;
+    private final String sampleParameters;
+
+    Variant(String fingerprint, long executions, Set<String> buckets, String sampleParameters) {
+      this.fingerprint = fingerprint;
+      this.executions = executions;
+      this.buckets = Collections.unmodifiableSet(new TreeSet<>(buckets));
+      this.sampleParameters = sampleParameters;
+    }
+
+    /**
+     * Returns the plan shape: operators, tables and indexes without estimates, e.g.
+     * {@code Sort(Seq Scan on orders)}.
+     *
+     * @return the plan fingerprint
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * Returns how many explained executions produced this plan.
+     *
+     * @return the execution count
+     */
+    public long getExecutions() {
+      return executions;
+    }
+
+    /**
+     * Returns the parameter buckets that produced this plan: the estimated-rows band ({@code rows~1e3})
+     * or, when the plan has no row estimate, the hash of the bind values ({@code params#1a2b}).
+     *
+     * @return an unmodifiable, sorted set of bucket labels
+     */
+    public Set<String> getBuckets() {
+      return buckets;
+    }
+
+    /**
+     * Returns the bind values of the first execution that produced this plan.
+     *
+     * @return the rendered bind values
+     */
+    public String getSampleParameters() {
+      return sampleParameters;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + fingerprint + "] executions=" + executions + " buckets=" + buckets
+          + " parameters=" + sampleParameters;
+    }
+  }
+}
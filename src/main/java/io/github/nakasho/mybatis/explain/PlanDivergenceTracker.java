@@ -0,0 +1,219 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects statements whose plan depends on the bind values (parameter-sensitive plans).
+ * <p>
+ * Each explained execution is bucketed by the order of magnitude of the largest row estimate among the scan (leaf)
+ * operators (or, when they have no row estimate, by the hash of the bind values), and the distinct plan shapes
+ * are kept per statement with the buckets that produced them. A statement with more than one shape is
+ * reported as divergent: a plan cached for one value is likely wrong for another.
+ * Plans without an operator tree are not tracked: their log lines may carry runtime statistics
+ * (e.g. {@code EXPLAIN ANALYZE}) that differ on every execution.
+ * Memory is bounded to {@value #MAX_VARIANTS} shapes per statement and {@value #MAX_BUCKETS} buckets per shape.
+ */
+public final class PlanDivergenceTracker {
+
+  static final int MAX_VARIANTS = 8;
+  static final int MAX_BUCKETS = 16;
+  private static final int MAX_VALUE_LENGTH = 64;
+
+  private final ConcurrentMap<String, ConcurrentMap<String, Accumulator>> statements = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an empty tracker.
+   */
+  public PlanDivergenceTracker() {
+    // default constructor
+  }
+
+  /**
+   * Records one explained execution.
+   *
+   * @param statementId the mapped statement id
+   * @param parameters the bind values in parameter order
+   * @param plan the plan produced with these values
+   * @return {@code true} if the plan is new and the statement now has more than one plan;
+   *     {@code false} if the plan has no operator tree and was not recorded
+   */
+  public boolean record(String statementId, List<?> parameters, ExplainPlan plan) {
+    if (plan.getRoots().isEmpty()) {
+      return false;
+    }
+    String fingerprint = fingerprint(plan);
+    ConcurrentMap<String, Accumulator> variants =
+        statements.computeIfAbsent(statementId, key -> new ConcurrentHashMap<>());
+    Accumulator accumulator = variants.get(fingerprint);
+    boolean[] added = {false};
+    if (accumulator == null) {
+      if (variants.size() >= MAX_VARIANTS) {
+        return false;
+      }
+      accumulator = variants.computeIfAbsent(fingerprint, key -> {
+        added[0] = true;
+        return new Accumulator(render(parameters));
+      });
+    }
+    accumulator.add(bucket(plan, parameters));
+    return added[0] && variants.size() > 1;
+  }
+
+  /**
+   * Returns the statements that produced more than one plan, ordered by statement id.
+   *
+   * @return a snapshot of the divergent statements
+   */
+  public List<PlanDivergence> getDivergentStatements() {
+    List<PlanDivergence> divergences = new ArrayList<>();
+    for (Map.Entry<String, ConcurrentMap<String, Accumulator>> statement : statements.entrySet()) {
+      if (statement.getValue().size() > 1) {
+        List<PlanDivergence.Variant> variants = new ArrayList<>();
+        for (Map.Entry<String, Accumulator> variant : statement.getValue().entrySet()) {
+          variants.add(variant.getValue().toVariant(variant.getKey()));
+        }
+        variants.sort(Comparator.comparingLong(PlanDivergence.Variant::getExecutions).reversed()
+            .thenComparing(PlanDivergence.Variant::getFingerprint));
+        divergences.add(new PlanDivergence(statement.getKey(), variants));
+      }
+    }
+    divergences.sort(Comparator.comparing(PlanDivergence::getStatementId));
+    return divergences;
+  }
+
+  /**
+   * Renders the divergent statements and their plans.
+   *
+   * @return the report
+   */
+  public String report() {
+    List<PlanDivergence> divergences = getDivergentStatements();
+    StringBuilder sb = new StringBuilder("Plan divergence: ").append(divergences.size()).append(" statement(s)");
+    for (PlanDivergence divergence : divergences) {
+      sb.append(System.lineSeparator()).append(divergence);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Discards all recorded executions.
+   */
+  public void reset() {
+    statements.clear();
+  }
+
+  /**
+   * Returns the plan shape: operators with their tables and indexes, children in parentheses, roots separated by
+   * {@code ;}.
+   */
+  static String fingerprint(ExplainPlan plan) {
+    StringBuilder sb = new StringBuilder();
+    for (PlanNode root : plan.getRoots()) {
+      if (sb.length() > 0) {
+        sb.append("; ");
+      }
+      appendShape(root, sb);
+    }
+    return sb.toString();
+  }
+
+  private static void appendShape(PlanNode node, StringBuilder sb) {
+    sb.append(node.getOperation());
+    if (node.getObjectName() != null) {
+      sb.append(" on ").append(node.getObjectName());
+    }
+    if (node.getIndexName() != null) {
+      sb.append(" using ").append(node.getIndexName());
+    }
+    if (!node.getChildren().isEmpty()) {
+      sb.append('(');
+      for (int i = 0; i < node.getChildren().size(); i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        appendShape(node.getChildren().get(i), sb);
+      }
+      sb.append(')');
+    }
+  }
+
+  /**
+   * Returns the band of the largest row estimate among the leaf operators, or the hash of the bind values.
+   * Leaves are the scans, whose estimates follow the selectivity of the bind values; a root such as an aggregate
+   * or a limit reports the same rows whatever the values.
+   */
+  static String bucket(ExplainPlan plan, List<?> parameters) {
+    double rows = Double.NaN;
+    for (PlanNode root : plan.getRoots()) {
+      rows = maxLeafRows(root, rows);
+    }
+    if (Double.isNaN(rows)) {
+      return "params#" + Integer.toHexString(parameters.hashCode());
+    }
+    return "rows~1e" + (int) Math.floor(Math.log10(Math.max(rows, 1)));
+  }
+
+  private static double maxLeafRows(PlanNode node, double max) {
+    if (node.getChildren().isEmpty()) {
+      double rows = node.getEstimatedRows();
+      return Double.isNaN(max) || rows > max ? rows : max;
+    }
+    double result = max;
+    for (PlanNode child : node.getChildren()) {
+      result = maxLeafRows(child, result);
+    }
+    return result;
+  }
+
+  private static String render(List<?> parameters) {
+    List<String> values = new ArrayList<>(parameters.size());
+    for (Object parameter : parameters) {
+      String value = String.valueOf(parameter);
+      values.add(value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) + "..." : value);
+    }
+    return values.toString();
+  }
+
+  private static final class Accumulator {
+    private final String sampleParameters;
+    private final LongAdder executions = new LongAdder();
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+
+    private Accumulator(String sampleParameters) {
+      this.sampleParameters = sampleParameters;
+    }
+
+    private void add(String bucket) {
+      executions.increment();
+      if (buckets.size() < MAX_BUCKETS) {
+        buckets.add(bucket);
+      }
+    }
+
+    private PlanDivergence.Variant toVariant(String fingerprint) {
+      return new PlanDivergence.Variant(fingerprint, executions.sum(), buckets, sampleParameters);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single operator of an execution plan.
+ * Estimates that the database did not report are {@link Double#NaN}.
+ */
+public final class PlanNode {
+
+  private final String operation;
+  private final String objectName;
+  private final String indexName;
+  private final double estimatedRows;
+  private final double estimatedCost;
+  private final List<PlanNode> children;
+
+  /**
+   * Creates a plan operator.
+   *
+   * @param operation the operator name
+   * @param objectName the accessed table, or {@code null}
+   * @param indexName the used index, or {@code null}
+   * @param estimatedRows the estimated rows, or {@link Double#NaN}
+   * @param estimatedCost the estimated cost including children, or {@link Double#NaN}
+   * @param children the child operators
+   */
+  public PlanNode(String operation, String objectName, String indexName, double estimatedRows, double estimatedCost,
+      List<PlanNode> children) {
+    this.operation = operation;
+    this.objectName = objectName;
+    this.indexName = indexName;
+    this.estimatedRows = estimatedRows;
+    this.estimatedCost = estimatedCost;
+    this.children = Collections.unmodifiableList(new ArrayList<>(children));
+  }
+
+  /**
+   * Returns the operator name as reported by the database (e.g. {@code Seq Scan}, {@code Clustered Index Seek}).
+   *
+   * @return the operator name
+   */
+  public String getOperation() {
+    return operation;
+  }
+
+  /**
+   * Returns the table accessed by this operator, or {@code null} if none.
+   *
+   * @return the table name, or {@code null}
+   */
+  public String getObjectName() {
+    return objectName;
+  }
+
+  /**
+   * Returns the index used by this operator, or {@code null} if none.
+   *
+   * @return the index name, or {@code null}
+   */
+  public String getIndexName() {
+    return indexName;
+  }
+
+  /**
+   * Returns the estimated number of rows produced by this operator.
+   *
+   * @return the estimated rows, or {@link Double#NaN} if unknown
+   */
+  public double getEstimatedRows() {
+    return estimatedRows;
+  }
+
+  /**
+   * Returns the estimated cost of this operator including its children.
+   *
+   * @return the estimated cost, or {@link Double#NaN} if unknown
+   */
+  public double getEstimatedCost() {
+    return estimatedCost;
+  }
+
+  /**
+   * Returns the child operators feeding this operator.
+   *
+   * @return an unmodifiable list of children
+   */
+  public List<PlanNode> getChildren() {
+    return children;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(operation);
+    if (objectName != null) {
+      sb.append(" on ").append(objectName);
+    }
+    if (indexName != null) {
+      sb.append(" using ").append(indexName);
+    }
+    if (!Double.isNaN(estimatedRows) || !Double.isNaN(estimatedCost)) {
+      sb.append(" (");
+      if (!Double.isNaN(estimatedRows)) {
+        sb.append("rows=").append(estimatedRows);
+      }
+      if (!Double.isNaN(estimatedCost)) {
+        if (!Double.isNaN(estimatedRows)) {
+          sb.append(' ');
+        }
+        sb.append("cost=").append(estimatedCost);
+      }
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+}
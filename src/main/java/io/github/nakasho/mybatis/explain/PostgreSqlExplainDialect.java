@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL dialect issuing {@code EXPLAIN <SQL>}.
+ * Operator lines of the text output are nested by indentation; detail lines such as {@code Filter:} are only logged.
+ */
+final class PostgreSqlExplainDialect extends AbstractExplainDialect {
+
+  private static final Pattern OPERATOR_LINE = Pattern.compile(
+      "^( *)(?:->  )?(.+?)  \\(cost=[0-9.]+\\.\\.([0-9.]+) rows=([0-9]+) width=[0-9]+\\)");
+  private static final Pattern OPERATOR_NAME = Pattern.compile("^(.+?)(?: using (\\S+))?(?: on (\\S+)(?: \\S+)?)?$");
+
+  PostgreSqlExplainDialect() {
+    super("postgresql", "EXPLAIN ", List.of("postgresql", "postgres"), List.of("PostgreSQL"));
+  }
+
+  @Override
+  public boolean supportsAnalyze() {
+    return true;
+  }
+
+  @Override
+  public String getAnalyzeSql(String sql) {
+    return "EXPLAIN ANALYZE " + sql;
+  }
+
+  @Override
+  public boolean supportsJsonFormat() {
+    return true;
+  }
+
+  @Override
+  public String getJsonExplainSql(String sql) {
+    return "EXPLAIN (FORMAT JSON) " + sql;
+  }
+
+  @Override
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) {
+    List<OperatorFrame> roots = new ArrayList<>();
+    Deque<OperatorFrame> open = new ArrayDeque<>();
+    for (String[] row : rows) {
+      Matcher line = OPERATOR_LINE.matcher(String.valueOf(row[0]));
+      if (!line.find()) {
+        continue;
+      }
+      OperatorFrame frame = new OperatorFrame(line.group(1).length(), line.group(2),
+          Double.parseDouble(line.group(4)), Double.parseDouble(line.group(3)));
+      while (!open.isEmpty() && open.peek().indent >= frame.indent) {
+        open.pop();
+      }
+      if (open.isEmpty()) {
+        roots.add(frame);
+      } else {
+        open.peek().children.add(frame);
+      }
+      open.push(frame);
+    }
+    List<PlanNode> nodes = new ArrayList<>(roots.size());
+    for (OperatorFrame root : roots) {
+      nodes.add(root.toNode());
+    }
+    return nodes;
+  }
+
+  private static final class OperatorFrame {
+    private final int indent;
+    private final String description;
+    private final double estimatedRows;
+    private final double estimatedCost;
+    private final List<OperatorFrame> children = new ArrayList<>();
+
+    private OperatorFrame(int indent, String description, double estimatedRows, double estimatedCost) {
+      this.indent = indent;
+      this.description = description;
+      this.estimatedRows = estimatedRows;
+      this.estimatedCost = estimatedCost;
+    }
+
+    private PlanNode toNode() {
+      List<PlanNode> nodes = new ArrayList<>(children.size());
+      for (OperatorFrame child : children) {
+        nodes.add(child.toNode());
+      }
+      Matcher name = OPERATOR_NAME.matcher(description);
+      name.matches();
+      return new PlanNode(name.group(1), name.group(3), name.group(2), estimatedRows, estimatedCost, nodes);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming parser for SQL Server {@code SHOWPLAN_XML} documents.
+ * Plans are read with StAX so that multi-megabyte plans are never held as a DOM;
+ * only operator type, estimates, accessed object and missing-index hints are retained.
+ */
+final class ShowplanXmlParser {
+
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  private ShowplanXmlParser() {
+  }
+
+  /**
+   * Parses a showplan document.
+   *
+   * @param reader the character stream of the {@code ShowPlanXML} document
+   * @return the parsed plan
+   * @throws XMLStreamException if the document is not well-formed
+   */
+  static ExplainPlan parse(Reader reader) throws XMLStreamException {
+    List<PlanNode> roots = new ArrayList<>();
+    List<MissingIndex> missingIndexes = new ArrayList<>();
+    Deque<OperatorFrame> operators = new ArrayDeque<>();
+    MissingIndexFrame missingIndex = null;
+    String impact = null;
+    String usage = null;
+
+    XMLStreamReader xml = FACTORY.createXMLStreamReader(reader);
+    try {
+      while (xml.hasNext()) {
+        int event = xml.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String name = xml.getLocalName();
+          if ("RelOp".equals(name)) {
+            operators.push(new OperatorFrame(xml.getAttributeValue(null, "PhysicalOp"),
+                parseDouble(xml.getAttributeValue(null, "EstimateRows")),
+                parseDouble(xml.getAttributeValue(null, "EstimatedTotalSubtreeCost"))));
+          } else if ("Object".equals(name) && !operators.isEmpty() && operators.peek().objectName == null) {
+            OperatorFrame frame = operators.peek();
+            frame.objectName = qualify(xml.getAttributeValue(null, "Schema"), xml.getAttributeValue(null, "Table"));
+            frame.indexName = xml.getAttributeValue(null, "Index");
+          } else if ("MissingIndexGroup".equals(name)) {
+            impact = xml.getAttributeValue(null, "Impact");
+          } else if ("MissingIndex".equals(name)) {
+            missingIndex = new MissingIndexFrame(qualify(xml.getAttributeValue(null, "Database"),
+                qualify(xml.getAttributeValue(null, "Schema"), xml.getAttributeValue(null, "Table"))));
+          } else if ("ColumnGroup".equals(name)) {
+            usage = xml.getAttributeValue(null, "Usage");
+          } else if ("Column".equals(name) && missingIndex != null) {
+            missingIndex.add(usage, xml.getAttributeValue(null, "Name"));
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          String name = xml.getLocalName();
+          if ("RelOp".equals(name)) {
+            PlanNode node = operators.pop().toNode();
+            if (operators.isEmpty()) {
+              roots.add(node);
+            } else {
+              operators.peek().children.add(node);
+            }
+          } else if ("MissingIndex".equals(name)) {
+            missingIndexes.add(missingIndex.toMissingIndex(parseDouble(impact)));
+            missingIndex = null;
+          }
+        }
+      }
+    } finally {
+      xml.close();
+    }
+    return new ExplainPlan(roots, missingIndexes);
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  private static double parseDouble(String value) {
+    return value == null ? Double.NaN : Double.parseDouble(value);
+  }
+
+  private static String qualify(String owner, String name) {
+    if (owner == null) {
+      return name;
+    }
+    return name == null ? owner : owner + "." + name;
+  }
+
+  private static final class OperatorFrame {
+    private final String operation;
+    private final double estimatedRows;
+    private final double estimatedCost;
+    private final List<PlanNode> children = new ArrayList<>();
+    private String objectName;
+    private String indexName;
+
+    private OperatorFrame(String operation, double estimatedRows, double estimatedCost) {
+      this.operation = operation;
+      this.estimatedRows = estimatedRows;
+      this.estimatedCost = estimatedCost;
+    }
+
+    private PlanNode toNode() {
+      return new PlanNode(operation, objectName, indexName, estimatedRows, estimatedCost, children);
+    }
+  }
+
+  private static final class MissingIndexFrame {
+    private final String table;
+    private final List<String> equality = new ArrayList<>();
+    private final List<String> inequality = new ArrayList<>();
+    private final List<String> include = new ArrayList<>();
+
+    private MissingIndexFrame(String table) {
+      this.table = table;
+    }
+
+    private void add(String usage, String column) {
+      if ("EQUALITY".equals(usage)) {
+        equality.add(column);
+      } else if ("INEQUALITY".equals(usage)) {
+        inequality.add(column);
+      } else {
+        include.add(column);
+      }
+    }
+
+    private MissingIndex toMissingIndex(double impact) {
+      return new MissingIndex(table, impact, equality, inequality, include);
+    }
+  }
+}
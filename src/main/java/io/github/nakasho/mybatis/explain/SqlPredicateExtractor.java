@@ -0,0 +1,351 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lightweight SQL scanner extracting, per table, the columns used in {@code WHERE}/{@code JOIN ... ON} predicates
+ * and in {@code ORDER BY}.
+ * <p>
+ * It is not a parser: it tokenizes the statement, tracks table aliases from {@code FROM}/{@code JOIN}/{@code UPDATE}
+ * clauses and classifies the columns next to comparison operators; a column compared for equality with another
+ * column is a join key, not a filter. Unqualified columns are attributed only when the statement references a single
+ * table. Columns wrapped in functions or compared with {@code <>}/{@code NOT} are ignored since an index would not
+ * serve them.
+ */
+final class SqlPredicateExtractor {
+
+  private static final Set<String> KEYWORDS = Set.of(
+      "select", "from", "where", "and", "or", "not", "on", "join", "inner", "left", "right", "full", "outer",
+      "cross", "natural", "as", "group", "by", "order", "having", "limit", "offset", "fetch", "first", "next",
+      "rows", "only", "union", "intersect", "except", "all", "distinct", "in", "is", "null", "like", "between",
+      "exists", "case", "when", "then", "else", "end", "asc", "desc", "nulls", "last", "update", "set", "delete",
+      "insert", "into", "values", "for", "with", "true", "false", "using", "returning", "top");
+  private static final Set<String> CLAUSE_ENDS = Set.of(
+      "group", "order", "having", "limit", "offset", "fetch", "union", "intersect", "except", "join", "inner",
+      "left", "right", "full", "cross", "natural", "select", "set", "returning", "for");
+
+  private static final String QUOTES = "\"`[]";
+
+  private enum Mode {
+    NONE, TABLES, PREDICATES, ORDER_BY
+  }
+
+  private enum Kind {
+    WORD, LITERAL, SYMBOL
+  }
+
+  private static final class Token {
+    private final Kind kind;
+    private final String text;
+
+    private Token(Kind kind, String text) {
+      this.kind = kind;
+      this.text = text;
+    }
+
+    private boolean is(String word) {
+      return kind == Kind.WORD && text.equalsIgnoreCase(word);
+    }
+
+    private boolean isSymbol(String symbol) {
+      return kind == Kind.SYMBOL && text.equals(symbol);
+    }
+
+    private boolean isIdentifier() {
+      return kind == Kind.WORD && (!unquote(text).equals(text) || !KEYWORDS.contains(text.toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  /**
+   * Columns of one table, each in order of first appearance.
+   */
+  static final class TableColumns {
+    private final Set<String> equality = new LinkedHashSet<>();
+    private final Set<String> join = new LinkedHashSet<>();
+    private final Set<String> range = new LinkedHashSet<>();
+    private final Set<String> orderBy = new LinkedHashSet<>();
+
+    Set<String> getEquality() {
+      return equality;
+    }
+
+    /**
+     * Returns the columns compared for equality with a column (join keys), kept apart from the filter columns.
+     */
+    Set<String> getJoin() {
+      return join;
+    }
+
+    Set<String> getRange() {
+      return range;
+    }
+
+    Set<String> getOrderBy() {
+      return orderBy;
+    }
+  }
+
+  /**
+   * The columns of a statement together with the tables and aliases it references.
+   */
+  static final class Result {
+    private final Map<String, TableColumns> columns;
+    private final Map<String, String> tables;
+
+    private Result(Map<String, TableColumns> columns, Map<String, String> tables) {
+      this.columns = columns;
+      this.tables = tables;
+    }
+
+    /**
+     * Returns the columns keyed by normalized (unqualified, lower-case) table name.
+     */
+    Map<String, TableColumns> getColumns() {
+      return columns;
+    }
+
+    /**
+     * Resolves a table name or alias, as reported by a plan, to the normalized table name.
+     * Names the statement does not declare are only normalized.
+     */
+    String resolveTable(String name) {
+      String normalized = normalizeTable(name);
+      return tables.getOrDefault(normalized, normalized);
+    }
+  }
+
+  private final List<Token> tokens;
+  private final Map<String, String> tables = new LinkedHashMap<>();
+  private final List<String[]> references = new ArrayList<>();
+
+  private SqlPredicateExtractor(String sql) {
+    this.tokens = tokenize(sql);
+  }
+
+  /**
+   * Extracts the predicate and ordering columns of a statement.
+   *
+   * @param sql the SQL with parameter markers
+   * @return the columns keyed by normalized (unqualified, lower-case) table name
+   */
+  static Map<String, TableColumns> extract(String sql) {
+    return analyze(sql).getColumns();
+  }
+
+  /**
+   * Extracts the predicate and ordering columns of a statement along with its table aliases.
+   *
+   * @param sql the SQL with parameter markers
+   * @return the columns and the alias map
+   */
+  static Result analyze(String sql) {
+    SqlPredicateExtractor extractor = new SqlPredicateExtractor(sql);
+    return new Result(extractor.scan(), extractor.tables);
+  }
+
+  /**
+   * Normalizes a table name from SQL or from a plan: strips quoting and schema, lower-cases.
+   *
+   * @param name the table name
+   * @return the normalized name
+   */
+  static String normalizeTable(String name) {
+    String stripped = unquote(name);
+    return stripped.substring(stripped.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+  }
+
+  private Map<String, TableColumns> scan() {
+    Deque<Mode> modes = new ArrayDeque<>();
+    Mode mode = Mode.NONE;
+    for (int i = 0; i < tokens.size(); i++) {
+      Token token = tokens.get(i);
+      if (token.isSymbol("(")) {
+        modes.push(mode);
+        mode = mode == Mode.PREDICATES ? Mode.PREDICATES : Mode.NONE;
+      } else if (token.isSymbol(")")) {
+        mode = modes.isEmpty() ? Mode.NONE : modes.pop();
+      } else if (token.is("from") || token.is("join") || token.is("update") || token.is("into")) {
+        mode = Mode.TABLES;
+        i = table(i + 1);
+      } else if (token.is("where") || token.is("on")) {
+        mode = Mode.PREDICATES;
+      } else if (token.is("order") && i + 1 < tokens.size() && tokens.get(i + 1).is("by")) {
+        mode = Mode.ORDER_BY;
+        i++;
+      } else if (token.kind == Kind.WORD && CLAUSE_ENDS.contains(token.text.toLowerCase(Locale.ROOT))) {
+        mode = Mode.NONE;
+      } else if (mode == Mode.TABLES && token.isSymbol(",")) {
+        i = table(i + 1);
+      } else if (mode == Mode.PREDICATES) {
+        predicate(i);
+      } else if (mode == Mode.ORDER_BY && isColumn(i)) {
+        references.add(new String[] {"orderBy", tokens.get(i).text});
+      }
+    }
+    return resolve();
+  }
+
+  /**
+   * Registers the table (and alias) starting at {@code start}; returns the index of the last consumed token.
+   */
+  private int table(int start) {
+    if (start >= tokens.size() || !tokens.get(start).isIdentifier()) {
+      return start - 1;
+    }
+    String table = normalizeTable(tokens.get(start).text);
+    tables.put(table, table);
+    int next = start + 1;
+    if (next < tokens.size() && tokens.get(next).is("as")) {
+      next++;
+    }
+    if (next < tokens.size() && tokens.get(next).isIdentifier()) {
+      tables.put(tokens.get(next).text.toLowerCase(Locale.ROOT), table);
+      return next;
+    }
+    return start;
+  }
+
+  private void predicate(int i) {
+    Token token = tokens.get(i);
+    if (token.isSymbol("=")) {
+      String kind = isColumn(i - 1) && isColumn(i + 1) ? "join" : "equality";
+      column(i - 1, kind);
+      column(i + 1, kind);
+    } else if (token.isSymbol("<") || token.isSymbol(">") || token.isSymbol("<=") || token.isSymbol(">=")) {
+      column(i - 1, "range");
+      column(i + 1, "range");
+    } else if (token.is("in") && !negated(i)) {
+      column(i - 1, "equality");
+    } else if (token.is("is") && !(i + 1 < tokens.size() && tokens.get(i + 1).is("not"))) {
+      column(i - 1, "equality");
+    } else if ((token.is("between") || token.is("like")) && !negated(i)) {
+      column(i - 1, "range");
+    }
+  }
+
+  private boolean negated(int i) {
+    return tokens.get(i - 1).is("not");
+  }
+
+  private void column(int i, String kind) {
+    if (isColumn(i)) {
+      references.add(new String[] {kind, tokens.get(i).text});
+    }
+  }
+
+  private boolean isColumn(int i) {
+    return i < tokens.size() && tokens.get(i).isIdentifier()
+        && !(i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("("));
+  }
+
+  private Map<String, TableColumns> resolve() {
+    Map<String, TableColumns> result = new HashMap<>();
+    Set<String> distinctTables = new LinkedHashSet<>(tables.values());
+    for (String[] reference : references) {
+      String column = reference[1];
+      int dot = column.lastIndexOf('.');
+      String table;
+      if (dot < 0) {
+        table = distinctTables.size() == 1 ? distinctTables.iterator().next() : null;
+      } else {
+        table = tables.get(normalizeTable(column.substring(0, dot)));
+      }
+      if (table != null) {
+        String name = unquote(column.substring(dot + 1)).toLowerCase(Locale.ROOT);
+        TableColumns columns = result.computeIfAbsent(table, key -> new TableColumns());
+        if ("equality".equals(reference[0])) {
+          columns.equality.add(name);
+        } else if ("join".equals(reference[0])) {
+          columns.join.add(name);
+        } else if ("range".equals(reference[0])) {
+          columns.range.add(name);
+        } else {
+          columns.orderBy.add(name);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static List<Token> tokenize(String sql) {
+    List<Token> tokens = new ArrayList<>();
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (sql.startsWith("--", i)) {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (sql.startsWith("/*", i)) {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (c == '\'') {
+        int end = i + 1;
+        while (end < length && sql.charAt(end) != '\'') {
+          end += sql.charAt(end) == '\\' ? 2 : 1;
+        }
+        tokens.add(new Token(Kind.LITERAL, "'"));
+        i = end + 1;
+      } else if (isWordChar(c)) {
+        int end = i + 1;
+        while (end < length && isWordChar(sql.charAt(end))) {
+          end++;
+        }
+        tokens.add(new Token(Character.isDigit(c) ? Kind.LITERAL : Kind.WORD, sql.substring(i, end)));
+        i = end;
+      } else if (sql.startsWith("<=", i) || sql.startsWith(">=", i) || sql.startsWith("<>", i)
+          || sql.startsWith("!=", i)) {
+        tokens.add(new Token(Kind.SYMBOL, sql.substring(i, i + 2)));
+        i += 2;
+      } else {
+        tokens.add(new Token(c == '?' ? Kind.LITERAL : Kind.SYMBOL, String.valueOf(c)));
+        i++;
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Identifiers may be dotted and quoted ({@code "s"."t"}, {@code `t`}, {@code [t]}); quoting is stripped later.
+   */
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || QUOTES.indexOf(c) >= 0;
+  }
+
+  private static String unquote(String identifier) {
+    StringBuilder sb = new StringBuilder(identifier.length());
+    for (int i = 0; i < identifier.length(); i++) {
+      char c = identifier.charAt(i);
+      if (QUOTES.indexOf(c) < 0) {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL Server dialect capturing the estimated plan with {@code SET SHOWPLAN_XML ON}.
+ * While the option is on, the statement is compiled but not executed and each result row holds a plan document,
+ * which is read as a character stream and parsed incrementally by {@link ShowplanXmlParser}.
+ */
+final class SqlServerExplainDialect extends AbstractExplainDialect {
+
+  SqlServerExplainDialect() {
+    super("sqlserver", "", List.of("sqlserver", "sql server", "mssql"), List.of("Microsoft SQL Server"));
+  }
+
+  @Override
+  public void beforeExplain(Connection connection) throws SQLException {
+    setShowplanXml(connection, true);
+  }
+
+  @Override
+  public void afterExplain(Connection connection) throws SQLException {
+    setShowplanXml(connection, false);
+  }
+
+  @Override
+  public ExplainPlan readPlan(ResultSet rs) throws Exception {
+    List<PlanNode> roots = new ArrayList<>();
+    List<MissingIndex> missingIndexes = new ArrayList<>();
+    while (rs.next()) {
+      try (Reader reader = rs.getCharacterStream(1)) {
+        ExplainPlan plan = ShowplanXmlParser.parse(reader);
+        roots.addAll(plan.getRoots());
+        missingIndexes.addAll(plan.getMissingIndexes());
+      }
+    }
+    return new ExplainPlan(roots, missingIndexes);
+  }
+
+  private static void setShowplanXml(Connection connection, boolean on) throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute(on ? "SET SHOWPLAN_XML ON" : "SET SHOWPLAN_XML OFF");
+    }
+  }
+}
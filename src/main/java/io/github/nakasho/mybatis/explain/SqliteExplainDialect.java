@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQLite dialect issuing {@code EXPLAIN QUERY PLAN <SQL>} rather than the bytecode listing of plain {@code EXPLAIN}.
+ * Rows are nested through their {@code parent} column; {@code SCAN}/{@code SEARCH} details name the table and index.
+ */
+final class SqliteExplainDialect extends AbstractExplainDialect {
+
+  private static final Pattern ACCESS = Pattern.compile(
+      "^(SCAN|SEARCH) (?:TABLE )?(\\S+)(?: AS \\S+)?(?: USING (?:COVERING |INTEGER PRIMARY KEY)?(?:INDEX (\\S+))?)?.*$");
+
+  SqliteExplainDialect() {
+    super("sqlite", "EXPLAIN QUERY PLAN ", List.of("sqlite"), List.of("SQLite"));
+  }
+
+  @Override
+  protected List<PlanNode> parseNodes(List<String> labels, List<String[]> rows) {
+    int id = indexOf(labels, "id");
+    int parent = indexOf(labels, "parent");
+    int detail = indexOf(labels, "detail");
+    if (id < 0 || parent < 0 || detail < 0) {
+      return Collections.emptyList();
+    }
+    Map<String, OperatorFrame> frames = new HashMap<>();
+    List<OperatorFrame> roots = new ArrayList<>();
+    for (String[] row : rows) {
+      OperatorFrame frame = new OperatorFrame(row[detail]);
+      frames.put(row[id], frame);
+      OperatorFrame parentFrame = frames.get(row[parent]);
+      if (parentFrame == null) {
+        roots.add(frame);
+      } else {
+        parentFrame.children.add(frame);
+      }
+    }
+    List<PlanNode> nodes = new ArrayList<>(roots.size());
+    for (OperatorFrame root : roots) {
+      nodes.add(root.toNode());
+    }
+    return nodes;
+  }
+
+  private static final class OperatorFrame {
+    private final String detail;
+    private final List<OperatorFrame> children = new ArrayList<>();
+
+    private OperatorFrame(String detail) {
+      this.detail = detail;
+    }
+
+    private PlanNode toNode() {
+      List<PlanNode> nodes = new ArrayList<>(children.size());
+      for (OperatorFrame child : children) {
+        nodes.add(child.toNode());
+      }
+      Matcher access = ACCESS.matcher(detail);
+      if (access.matches()) {
+        return new PlanNode(access.group(1), access.group(2), access.group(3), Double.NaN, Double.NaN, nodes);
+      }
+      return new PlanNode(detail, null, null, Double.NaN, Double.NaN, nodes);
+    }
+  }
+}
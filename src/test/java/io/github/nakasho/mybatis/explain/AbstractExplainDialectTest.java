@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AbstractExplainDialectTest {
+
+  @Test
+  @DisplayName("generic: EXPLAIN prefix and no capabilities")
+  void genericShouldUseExplainPrefix() throws Exception {
+    ExplainDialect dialect = new GenericExplainDialect();
+
+    assertEquals("generic", dialect.getName());
+    assertEquals("EXPLAIN SELECT 1", dialect.getExplainSql("SELECT 1"));
+    assertFalse(dialect.supportsAnalyze());
+    assertFalse(dialect.supportsJsonFormat());
+    assertNull(dialect.getPlanQuery("EXPLAIN SELECT 1"));
+    assertNull(dialect.getPlanCleanupSql("EXPLAIN SELECT 1"));
+    assertFalse(dialect.matchesDatabaseId("h2"));
+    assertFalse(dialect.matchesProductName("H2"));
+    UnsupportedOperationException e = assertThrows(UnsupportedOperationException.class,
+        () -> dialect.getAnalyzeSql("SELECT 1"));
+    assertEquals("generic does not support EXPLAIN ANALYZE", e.getMessage());
+    e = assertThrows(UnsupportedOperationException.class, () -> dialect.getJsonExplainSql("SELECT 1"));
+    assertEquals("generic does not support JSON plans", e.getMessage());
+
+    Connection connection = mock(Connection.class);
+    dialect.beforeExplain(connection);
+    dialect.afterExplain(connection);
+    verifyNoInteractions(connection);
+  }
+
+  @Test
+  @DisplayName("readPlan: single column rows are logged as-is")
+  void readPlanShouldLogSingleColumn() throws Exception {
+    ExplainPlan plan = new GenericExplainDialect().readPlan(
+        ResultSets.of(new String[] {"PLAN"}, new String[] {"SELECT ..."}, new String[] {"/* scan */"}));
+
+    assertEquals(List.of("SELECT ...", "/* scan */"), plan.toLines());
+    assertTrue(plan.getRoots().isEmpty());
+    assertTrue(plan.getMissingIndexes().isEmpty());
+  }
+
+  @Test
+  @DisplayName("readPlan: multi-column rows are logged as label=value pairs")
+  void readPlanShouldLogLabelledColumns() throws Exception {
+    ExplainPlan plan = new GenericExplainDialect().readPlan(
+        ResultSets.of(new String[] {"id", "detail"}, new String[] {"1", "scan"}));
+
+    assertEquals(List.of("id=1, detail=scan"), plan.toLines());
+  }
+
+  @Test
+  @DisplayName("readJsonPlan: streams the first column of each row")
+  void readJsonPlanShouldStreamEachRow() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(true, true, false);
+    when(rs.getCharacterStream(1)).thenReturn(
+        new StringReader("[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Relation Name\": \"users\"}}]"),
+        new StringReader("[{\"Plan\": {\"Node Type\": \"Result\"}}]"));
+
+    ExplainPlan plan = new PostgreSqlExplainDialect().readJsonPlan(rs);
+
+    assertEquals(List.of("Seq Scan on users", "Result"), plan.toLines());
+  }
+
+  @Test
+  @DisplayName("indexOf: case-insensitive lookup")
+  void indexOfShouldIgnoreCase() {
+    assertEquals(1, AbstractExplainDialect.indexOf(List.of("id", "Rows"), "rows"));
+    assertEquals(-1, AbstractExplainDialect.indexOf(List.of("id"), "rows"));
+  }
+
+  @Test
+  @DisplayName("parseEstimate: NaN for missing or non-numeric values")
+  void parseEstimateShouldTolerateBadValues() {
+    assertEquals(12.5, AbstractExplainDialect.parseEstimate(" 12.5 "));
+    assertTrue(Double.isNaN(AbstractExplainDialect.parseEstimate(null)));
+    assertTrue(Double.isNaN(AbstractExplainDialect.parseEstimate("n/a")));
+  }
+}
@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+@SuppressWarnings("deprecation")
 class DatabaseTypeTest {
 
   @Test
@@ -37,7 +38,7 @@ class DatabaseTypeTest {
   }
 
   @Test
-  @DisplayName("SQL_SERVER has null prefix (not supported)")
+  @DisplayName("SQL_SERVER has null prefix (plan captured via SHOWPLAN_XML)")
   void sqlServerPrefixShouldBeNull() {
     assertNull(DatabaseType.SQL_SERVER.getExplainPrefix());
   }
@@ -0,0 +1,94 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class Db2ExplainDialectTest {
+
+  private final Db2ExplainDialect dialect = new Db2ExplainDialect();
+
+  @Test
+  @DisplayName("tags every explain and reads back and deletes only that explain")
+  void shouldReadPlanFromExplainTablesByTag() {
+    String explainSql = dialect.getExplainSql("SELECT 1");
+    Matcher matcher = Pattern.compile("EXPLAIN PLAN SET QUERYTAG = '(MBX[0-9A-F]{16})' FOR SELECT 1")
+        .matcher(explainSql);
+    assertTrue(matcher.matches());
+    String tag = matcher.group(1);
+    assertNotEquals(explainSql, dialect.getExplainSql("SELECT 1"));
+
+    String planQuery = dialect.getPlanQuery(explainSql);
+    assertTrue(planQuery.contains("T.EXPLAIN_REQUESTER = CURRENT USER AND T.QUERYTAG = '" + tag + "'"));
+    assertTrue(planQuery.contains("S.TARGET_TYPE = 'O'"));
+    assertTrue(planQuery.contains("P.SOURCE_ID = O.OPERATOR_ID"));
+    String cleanupSql = dialect.getPlanCleanupSql(explainSql);
+    assertTrue(cleanupSql.startsWith("DELETE FROM EXPLAIN_INSTANCE"));
+    assertTrue(cleanupSql.endsWith("EXPLAIN_REQUESTER = CURRENT USER AND QUERYTAG = '" + tag + "')"));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> dialect.getPlanQuery("EXPLAIN PLAN FOR SELECT 1"));
+    assertEquals("Not a tagged DB2 explain statement: EXPLAIN PLAN FOR SELECT 1", e.getMessage());
+  }
+
+  @Test
+  @DisplayName("matches DB2 databaseIds and product names")
+  void shouldMatchDb2() {
+    assertTrue(dialect.matchesDatabaseId("db2"));
+    assertTrue(dialect.matchesDatabaseId("DB2/LINUXX8664"));
+    assertTrue(dialect.matchesProductName("DB2/LINUXX8664"));
+  }
+
+  @Test
+  @DisplayName("readPlan: links operators through their streams with RETURN as the root")
+  void readPlanShouldBuildOperatorTree() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(
+        new String[] {"OPERATOR_ID", "OPERATOR_TYPE", "TOTAL_COST", "OBJECT_NAME", "STREAM_COUNT", "PARENT_ID"},
+        new String[] {"1", "RETURN", "15.2", null, null, null},
+        new String[] {"2", "NLJOIN", "15.1", null, null, "1"},
+        new String[] {"3", "TBSCAN", "8.3", "ORDERS            ", "1000", "2"},
+        new String[] {"3", "TBSCAN", "8.3", "ORDERS_ARCHIVE", "10", "2"},
+        new String[] {"4", "IXSCAN", "6.8", "IDX_USERS", "50", "2 "}));
+
+    List<PlanNode> roots = plan.getRoots();
+    assertEquals(1, roots.size());
+    PlanNode root = roots.get(0);
+    assertEquals("RETURN", root.getOperation());
+    assertNull(root.getObjectName());
+    assertEquals(15.2, plan.getEstimatedCost());
+    PlanNode join = root.getChildren().get(0);
+    assertEquals("NLJOIN", join.getOperation());
+    assertEquals(2, join.getChildren().size());
+    PlanNode scan = join.getChildren().get(0);
+    assertEquals("ORDERS", scan.getObjectName());
+    assertNull(scan.getIndexName());
+    assertEquals(1000.0, scan.getEstimatedRows());
+    PlanNode indexScan = join.getChildren().get(1);
+    assertNull(indexScan.getObjectName());
+    assertEquals("IDX_USERS", indexScan.getIndexName());
+  }
+}
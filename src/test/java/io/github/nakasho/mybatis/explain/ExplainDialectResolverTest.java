@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ExplainDialectResolverTest {
+
+  private static Configuration configuration(DataSource dataSource) {
+    return new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+  }
+
+  private static Connection connection(String productName) throws Exception {
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(metaData.getDatabaseProductName()).thenReturn(productName);
+    Connection connection = mock(Connection.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    return connection;
+  }
+
+  @Test
+  @DisplayName("resolve: databaseId takes precedence over metadata")
+  void resolveShouldUseDatabaseId() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+    Connection connection = mock(Connection.class);
+
+    ExplainDialect dialect = resolver.resolve("postgresql", configuration(mock(DataSource.class)), connection);
+
+    assertEquals("postgresql", dialect.getName());
+    verify(connection, never()).getMetaData();
+  }
+
+  @Test
+  @DisplayName("resolve: unset databaseId detects the product once per DataSource")
+  void resolveShouldCacheProductNamePerDataSource() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+    Configuration configuration = configuration(mock(DataSource.class));
+    Connection connection = connection("SQLite");
+
+    ExplainDialect first = resolver.resolve(null, configuration, connection);
+    ExplainDialect second = resolver.resolve(null, configuration, connection);
+
+    assertEquals("sqlite", first.getName());
+    assertSame(first, second);
+    verify(connection, times(1)).getMetaData();
+  }
+
+  @Test
+  @DisplayName("resolve: unknown databaseId falls back to the product name")
+  void resolveShouldFallBackToProductNameForUnknownDatabaseId() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+
+    ExplainDialect dialect = resolver.resolve("reporting", configuration(mock(DataSource.class)),
+        connection("DB2/LINUXX8664"));
+
+    assertEquals("db2", dialect.getName());
+  }
+
+  @Test
+  @DisplayName("resolve: separate DataSources are detected separately")
+  void resolveShouldDetectEachDataSource() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+
+    assertEquals("mysql", resolver.resolve(null, configuration(mock(DataSource.class)),
+        connection("MySQL")).getName());
+    assertEquals("postgresql", resolver.resolve(null, configuration(mock(DataSource.class)),
+        connection("PostgreSQL")).getName());
+  }
+
+  @Test
+  @DisplayName("resolve: configuration without environment is cached by configuration")
+  void resolveShouldCacheByConfigurationWithoutEnvironment() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+    Configuration configuration = new Configuration();
+    Connection connection = connection("Microsoft SQL Server");
+
+    assertEquals("sqlserver", resolver.resolve(null, configuration, connection).getName());
+    assertEquals("sqlserver", resolver.resolve(null, configuration, connection).getName());
+    verify(connection, times(1)).getMetaData();
+  }
+
+  @Test
+  @DisplayName("resolve: unknown or unavailable product falls back to generic")
+  void resolveShouldFallBackToGeneric() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver(Collections.<ExplainDialect>emptyList());
+
+    assertSame(ExplainDialectResolver.GENERIC,
+        resolver.resolve(null, configuration(mock(DataSource.class)), connection("H2")));
+    assertSame(ExplainDialectResolver.GENERIC,
+        resolver.resolve(null, configuration(mock(DataSource.class)), connection(null)));
+    assertSame(ExplainDialectResolver.GENERIC,
+        resolver.resolve(null, configuration(mock(DataSource.class)), mock(Connection.class)));
+  }
+
+  @Test
+  @DisplayName("resolve: provided dialects take precedence over built-ins")
+  void resolveShouldPreferProvidedDialects() throws Exception {
+    ExplainDialect custom = new AbstractExplainDialect("custom-mysql", "EXPLAIN FORMAT=TREE ",
+        List.of("mysql"), List.of("MySQL")) {
+      @Override
+      public ExplainPlan readPlan(ResultSet rs) {
+        return null;
+      }
+    };
+    ExplainDialectResolver resolver = new ExplainDialectResolver(List.of(custom));
+
+    assertSame(custom, resolver.resolve("mysql", configuration(mock(DataSource.class)), mock(Connection.class)));
+    assertSame(custom, resolver.resolve(null, configuration(mock(DataSource.class)), connection("MySQL")));
+  }
+
+  @Test
+  @DisplayName("default constructor discovers dialects with ServiceLoader")
+  void defaultConstructorShouldLoadServiceProviders() throws Exception {
+    ExplainDialectResolver resolver = new ExplainDialectResolver();
+
+    assertEquals("acme", resolver.resolve("acme", new Configuration(), mock(Connection.class)).getName());
+    assertEquals("oracle", resolver.resolve("oracle", new Configuration(), mock(Connection.class)).getName());
+  }
+}
@@ -16,14 +16,27 @@
 package io.github.nakasho.mybatis.explain;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.StringReader;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -36,18 +49,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.nologging.NoLoggingImpl;
 import org.apache.ibatis.logging.stdout.StdOutImpl;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.SqlCommandType;
@@ -55,6 +73,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -64,6 +83,7 @@ import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 
 class ExplainInterceptorTest {
 
@@ -436,23 +456,61 @@ class ExplainInterceptorTest {
   }
 
   @Test
-  @DisplayName("executeExplain: Oracle databaseId uses EXPLAIN PLAN FOR prefix")
-  void executeExplainShouldUseOraclePrefix() throws Exception {
+  @DisplayName("executeExplain: Oracle reads the plan back from PLAN_TABLE and deletes it")
+  void executeExplainShouldReadPlanTableForOracle() throws Exception {
     Log log = mock(Log.class);
 
-    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
-    when(metaData.getColumnCount()).thenReturn(1);
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    ResultSet rs = ResultSets.of(
+        new String[] {"ID", "OPERATION", "OPTIONS", "OBJECT_NAME", "CARDINALITY", "COST", "PARENT_ID"},
+        new String[] {"0", "SELECT STATEMENT", null, null, "1", "2", null});
+    Statement query = mock(Statement.class);
+    when(query.executeQuery(startsWith("SELECT ID, OPERATION"))).thenReturn(rs);
+
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    when(conn.createStatement()).thenReturn(query);
+
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "oracle");
+
+    new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor);
+
+    InOrder inOrder = inOrder(conn, pstmt, query);
+    inOrder.verify(conn).prepareStatement(startsWith("EXPLAIN PLAN SET STATEMENT_ID = 'MBX"));
+    inOrder.verify(pstmt).execute();
+    inOrder.verify(query).executeQuery(startsWith("SELECT ID, OPERATION"));
+    inOrder.verify(query).executeUpdate(startsWith("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = 'MBX"));
+    verify(pstmt, never()).executeQuery();
+    verify(log).debug("<== ExplainPlan: ID=0, OPERATION=SELECT STATEMENT, OPTIONS=null, OBJECT_NAME=null, "
+        + "CARDINALITY=1, COST=2, PARENT_ID=null");
+  }
+
+  @Test
+  @DisplayName("executeExplain: SQL Server databaseId captures SHOWPLAN_XML")
+  void executeExplainShouldCaptureShowplanForSqlServer() throws Exception {
+    Log log = mock(Log.class);
 
     ResultSet rs = mock(ResultSet.class);
     when(rs.next()).thenReturn(true, false);
-    when(rs.getString(1)).thenReturn("OraclePlan");
-    when(rs.getMetaData()).thenReturn(metaData);
+    when(rs.getCharacterStream(1)).thenReturn(new StringReader(
+        "<ShowPlanXML xmlns=\"http://schemas.microsoft.com/sqlserver/2004/07/showplan\">"
+            + "<RelOp PhysicalOp=\"Clustered Index Scan\" EstimateRows=\"2\" EstimatedTotalSubtreeCost=\"0.5\">"
+            + "<IndexScan><Object Schema=\"[dbo]\" Table=\"[users]\" Index=\"[PK_users]\"/></IndexScan>"
+            + "</RelOp></ShowPlanXML>"));
 
     PreparedStatement pstmt = mock(PreparedStatement.class);
     when(pstmt.executeQuery()).thenReturn(rs);
 
+    Statement setting = mock(Statement.class);
     Connection conn = mock(Connection.class);
     when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    when(conn.createStatement()).thenReturn(setting);
 
     Executor executor = newMockExecutor(conn);
 
@@ -460,20 +518,119 @@ class ExplainInterceptorTest {
     MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
     BoundSql boundSql = realMs.getBoundSql(1);
 
-    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "oracle");
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "sqlserver");
+
+    new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor);
+
+    InOrder inOrder = inOrder(setting, conn);
+    inOrder.verify(setting).execute("SET SHOWPLAN_XML ON");
+    inOrder.verify(conn).prepareStatement(boundSql.getSql());
+    inOrder.verify(setting).execute("SET SHOWPLAN_XML OFF");
+    verify(log).debug("<== ExplainPlan: Clustered Index Scan on [dbo].[users] using [PK_users] (rows=2.0 cost=0.5)");
+  }
+
+  @Test
+  @DisplayName("executeExplain: SQL Server turns SHOWPLAN_XML off when the plan cannot be read")
+  void executeExplainShouldResetShowplanOnFailure() throws Exception {
+    Log log = mock(Log.class);
+
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(true, false);
+    when(rs.getCharacterStream(1)).thenReturn(new StringReader("<ShowPlanXML>"));
+
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+
+    Statement setting = mock(Statement.class);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    when(conn.createStatement()).thenReturn(setting);
+
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "sqlserver");
 
     new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor);
 
-    verify(conn).prepareStatement("EXPLAIN PLAN FOR " + boundSql.getSql());
-    verify(log).debug("<== ExplainPlan: OraclePlan");
+    verify(setting).execute("SET SHOWPLAN_XML OFF");
+    verify(log).debug(startsWith("<== ExplainPlan: Failed to execute EXPLAIN: "));
+  }
+
+  @Test
+  @DisplayName("executeExplain: SQL Server aborts the connection and fails when SHOWPLAN_XML cannot be turned off")
+  void executeExplainShouldAbortConnectionWhenShowplanResetFails() throws Exception {
+    Log log = mock(Log.class);
+
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(false);
+
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+
+    Statement setting = mock(Statement.class);
+    doThrow(new SQLException("Connection reset")).when(setting).execute("SET SHOWPLAN_XML OFF");
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    when(conn.createStatement()).thenReturn(setting);
+    doThrow(new SQLException("Abort denied")).when(conn).abort(any());
+
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "sqlserver");
+
+    ExecutorException e = assertThrows(ExecutorException.class,
+        () -> new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor));
+
+    assertEquals("Failed to restore the connection after EXPLAIN; the connection was aborted: Connection reset",
+        e.getMessage());
+    assertEquals("Abort denied", e.getSuppressed()[0].getMessage());
+    verify(conn).abort(any());
+    verify(log, never()).debug(startsWith("<== ExplainPlan: Failed"));
+  }
+
+  @Test
+  @DisplayName("Interceptor: a connection left in SQL Server showplan mode fails the statement")
+  void interceptShouldPropagateShowplanResetFailure() throws Throwable {
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+
+    Statement setting = mock(Statement.class);
+    doThrow(new SQLException("Connection reset")).when(setting).execute("SET SHOWPLAN_XML OFF");
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenThrow(new SQLException("Invalid object name"));
+    when(conn.createStatement()).thenReturn(setting);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(
+        config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser"), log, "sqlserver");
+    Executor executor = newMockExecutor(conn);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getTarget()).thenReturn(executor);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, 1});
+    when(invocation.proceed()).thenReturn(1);
+
+    assertThrows(ExecutorException.class, () -> new ExplainInterceptor().intercept(invocation));
+    verify(conn).abort(any());
   }
 
   @Test
-  @DisplayName("executeExplain: SQL Server databaseId skips EXPLAIN")
-  void executeExplainShouldSkipForSqlServer() throws Exception {
+  @DisplayName("executeExplain: SQL Server logs connection failure")
+  void executeExplainShouldLogShowplanConnectionFailure() throws Exception {
     Log log = mock(Log.class);
 
+    Transaction transaction = mock(Transaction.class);
+    when(transaction.getConnection()).thenThrow(new SQLException("Connection failed"));
+
     Executor executor = mock(Executor.class);
+    when(executor.getTransaction()).thenReturn(transaction);
 
     Configuration config = sqlSessionFactory.getConfiguration();
     MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
@@ -483,7 +640,618 @@ class ExplainInterceptorTest {
 
     new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor);
 
-    verify(executor, never()).getTransaction();
+    verify(log).debug("<== ExplainPlan: Failed to execute EXPLAIN: Connection failed");
+  }
+
+  @Test
+  @DisplayName("executeExplain: DB2 reads the plan back from the explain tables and deletes it")
+  void executeExplainShouldReadPlanQueryForDb2() throws Exception {
+    Log log = mock(Log.class);
+
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    ResultSet rs = ResultSets.of(
+        new String[] {"OPERATOR_ID", "OPERATOR_TYPE", "TOTAL_COST", "OBJECT_NAME", "STREAM_COUNT", "PARENT_ID"},
+        new String[] {"1", "RETURN", "7.5", null, null, null});
+    Statement query = mock(Statement.class);
+    when(query.executeQuery(startsWith("SELECT O.OPERATOR_ID"))).thenReturn(rs);
+
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    when(conn.createStatement()).thenReturn(query);
+
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "db2");
+
+    new ExplainInterceptor().executeExplain(ms, 1, boundSql, executor);
+
+    InOrder inOrder = inOrder(conn, pstmt, query);
+    inOrder.verify(conn).prepareStatement(startsWith("EXPLAIN PLAN SET QUERYTAG = 'MBX"));
+    inOrder.verify(pstmt).execute();
+    inOrder.verify(query).executeQuery(startsWith("SELECT O.OPERATOR_ID"));
+    inOrder.verify(query).executeUpdate(startsWith("DELETE FROM EXPLAIN_INSTANCE"));
+    verify(pstmt, never()).executeQuery();
+    verify(log).debug("<== ExplainPlan: OPERATOR_ID=1, OPERATOR_TYPE=RETURN, TOTAL_COST=7.5, OBJECT_NAME=null, "
+        + "STREAM_COUNT=null, PARENT_ID=null");
+  }
+
+  @Test
+  @DisplayName("executeExplain: DB2 deletes the explain even when the plan cannot be read")
+  void executeExplainShouldCleanUpDb2PlanOnFailure() throws Exception {
+    Log log = mock(Log.class);
+    Statement query = mock(Statement.class);
+    when(query.executeQuery(anyString())).thenThrow(new SQLException("SQL0204N EXPLAIN_OPERATOR is undefined"));
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+    when(conn.createStatement()).thenReturn(query);
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "db2");
+
+    assertNull(new ExplainInterceptor().executeExplain(ms, 1, realMs.getBoundSql(1), executor));
+
+    verify(query).executeUpdate(startsWith("DELETE FROM EXPLAIN_INSTANCE"));
+    verify(log).debug("<== ExplainPlan: Failed to execute EXPLAIN: SQL0204N EXPLAIN_OPERATOR is undefined");
+  }
+
+  @Test
+  @DisplayName("executeExplain: plan query without cleanup statement")
+  void executeExplainShouldReadPlanQueryWithoutCleanup() throws Exception {
+    ExplainDialect dialect = new AbstractExplainDialect("tables", "EXPLAIN INTO TABLES ", List.of("tables"),
+        List.of("Tables")) {
+      @Override
+      public String getPlanQuery(String explainSql) {
+        return "SELECT * FROM PLAN_TABLE";
+      }
+    };
+    ExplainDialectResolver resolver = mock(ExplainDialectResolver.class);
+    when(resolver.resolve(any(), any(), any())).thenReturn(dialect);
+    Statement query = mock(Statement.class);
+    ResultSet rs = ResultSets.of(new String[] {"PLAN"}, new String[] {"FULL SCAN"});
+    when(query.executeQuery("SELECT * FROM PLAN_TABLE")).thenReturn(rs);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+    when(conn.createStatement()).thenReturn(query);
+    Log log = mock(Log.class);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    MappedStatement ms = cloneMsWithLog(realMs, log);
+    new ExplainInterceptor(resolver).executeExplain(ms, 1, realMs.getBoundSql(1), newMockExecutor(conn));
+
+    verify(query, never()).executeUpdate(anyString());
+    verify(log).debug("<== ExplainPlan: FULL SCAN");
+  }
+
+  @Test
+  @DisplayName("executeExplain: analyze property explains SELECT with EXPLAIN ANALYZE")
+  void executeExplainShouldAnalyzeSelectWhenEnabled() throws Exception {
+    Connection conn = mockExplainConnection();
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, mock(Log.class), "postgresql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("analyze", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, boundSql, executor);
+
+    verify(conn).prepareStatement("EXPLAIN ANALYZE " + boundSql.getSql());
+  }
+
+  @Test
+  @DisplayName("executeExplain: analyze property never re-executes updates")
+  void executeExplainShouldNotAnalyzeUpdate() throws Exception {
+    Connection conn = mockExplainConnection();
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.deleteUser");
+    Map<String, Object> params = Map.of("id", 3);
+    BoundSql boundSql = realMs.getBoundSql(params);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, mock(Log.class), "postgresql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("analyze", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, params, boundSql, executor);
+
+    verify(conn).prepareStatement("EXPLAIN " + boundSql.getSql());
+  }
+
+  @Test
+  @DisplayName("executeExplain: analyze property is ignored when the dialect cannot analyze")
+  void executeExplainShouldIgnoreAnalyzeWithoutSupport() throws Exception {
+    Connection conn = mockExplainConnection();
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, mock(Log.class), "oracle");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("analyze", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, boundSql, executor);
+
+    verify(conn).prepareStatement(endsWith("' FOR " + boundSql.getSql()));
+  }
+
+  @Test
+  @DisplayName("executeExplain: format=json streams the JSON plan and logs the operator tree")
+  void executeExplainShouldStreamJsonPlan() throws Exception {
+    Log log = mock(Log.class);
+
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(true, false);
+    when(rs.getCharacterStream(1)).thenReturn(new StringReader(
+        "{\"query_block\": {\"cost_info\": {\"query_cost\": \"1.20\"},"
+            + " \"table\": {\"table_name\": \"users\", \"access_type\": \"const\", \"key\": \"PRIMARY\","
+            + " \"rows_examined_per_scan\": 1}}}"));
+
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "mysql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("format", "JSON");
+    properties.setProperty("analyze", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, boundSql, executor);
+
+    verify(conn).prepareStatement("EXPLAIN FORMAT=JSON " + boundSql.getSql());
+    verify(rs, never()).getString(1);
+    verify(log).debug("<== ExplainPlan: query_block (cost=1.2)");
+    verify(log).debug("<== ExplainPlan:   const on users using PRIMARY (rows=1.0)");
+  }
+
+  @Test
+  @DisplayName("executeExplain: format=json falls back to text when the dialect has no JSON format")
+  void executeExplainShouldFallBackToTextWithoutJsonSupport() throws Exception {
+    Connection conn = mockExplainConnection();
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, mock(Log.class), "oracle");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("format", "json");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, boundSql, executor);
+
+    verify(conn).prepareStatement(endsWith("' FOR " + boundSql.getSql()));
+  }
+
+  @Test
+  @DisplayName("executeExplain: indexAdvisor property feeds explained plans to the advisor")
+  void executeExplainShouldFeedIndexAdvisor() throws Exception {
+    ResultSet rs = ResultSets.of(new String[] {"table", "type", "key", "rows"},
+        new String[] {"users", "ALL", null, "100"});
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    BoundSql boundSql = realMs.getBoundSql(1);
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, mock(Log.class), "mysql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("indexAdvisor", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, boundSql, executor);
+
+    IndexCandidate candidate = interceptor.getIndexAdvisor().getCandidates().get(0);
+    assertEquals("CREATE INDEX idx_users_id ON users (id)", candidate.toCreateIndexSql());
+    assertEquals(100.0, candidate.getScore());
+    assertEquals(Set.of(ms.getId()), candidate.getStatementIds());
+  }
+
+  @Test
+  @DisplayName("setProperties: indexAdvisor shutdown hook is replaced on reconfiguration")
+  void setPropertiesShouldConfigureIndexAdvisor() throws Exception {
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("indexAdvisor", "true");
+    properties.setProperty("indexAdvisor.reportOnShutdown", "true");
+    interceptor.setProperties(properties);
+    assertNotNull(interceptor.getIndexAdvisor());
+    Thread firstHook = shutdownHook(interceptor);
+
+    interceptor.setProperties(properties);
+    Thread secondHook = shutdownHook(interceptor);
+    assertNotNull(secondHook);
+    assertFalse(Runtime.getRuntime().removeShutdownHook(firstHook));
+
+    interceptor.setProperties(new Properties());
+    assertNull(interceptor.getIndexAdvisor());
+    assertNull(shutdownHook(interceptor));
+    assertFalse(Runtime.getRuntime().removeShutdownHook(secondHook));
+  }
+
+  private static Thread shutdownHook(ExplainInterceptor interceptor) throws Exception {
+    Field field = ExplainInterceptor.class.getDeclaredField("indexAdvisorShutdownHook");
+    field.setAccessible(true);
+    return (Thread) field.get(interceptor);
+  }
+
+  @Test
+  @DisplayName("executeExplain: planDivergence property flags plans that change with the bind values")
+  void executeExplainShouldTrackPlanDivergence() throws Exception {
+    Log log = mock(Log.class);
+    String[] labels = {"table", "type", "key", "rows"};
+    ResultSet seek = ResultSets.of(labels, new String[] {"users", "const", "PRIMARY", "1"});
+    ResultSet scan = ResultSets.of(labels, new String[] {"users", "ALL", null, "100000"});
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(seek, scan);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "mysql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("planDivergence", "true");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, realMs.getBoundSql(1), executor);
+    verify(log, never()).debug("<== ExplainPlan: Plan differs from earlier executions with other parameters");
+    interceptor.executeExplain(ms, 2, realMs.getBoundSql(2), executor);
+
+    verify(log).debug("<== ExplainPlan: Plan differs from earlier executions with other parameters");
+    PlanDivergence divergence = interceptor.getPlanDivergenceTracker().getDivergentStatements().get(0);
+    assertEquals(ms.getId(), divergence.getStatementId());
+    assertEquals("[1]", divergence.getVariants().get(1).getSampleParameters());
+    assertEquals("[2]", divergence.getVariants().get(0).getSampleParameters());
+
+    interceptor.setProperties(new Properties());
+    assertNull(interceptor.getPlanDivergenceTracker());
+  }
+
+  @Test
+  @DisplayName("bindValues: resolves values like the default parameter handler")
+  void bindValuesShouldResolveLikeParameterHandler() {
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement selectUser = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    MappedStatement updateUser = config.getMappedStatement("io.github.nakasho.mybatis.explain.updateUser");
+    Map<String, Object> params = Map.of("id", 3, "name", "Carol");
+
+    assertEquals(List.of(1), ExplainInterceptor.bindValues(config, 1, selectUser.getBoundSql(1)));
+    assertEquals(List.of("Carol", 3), ExplainInterceptor.bindValues(config, params, updateUser.getBoundSql(params)));
+    assertEquals(Collections.singletonList(null),
+        ExplainInterceptor.bindValues(config, null, selectUser.getBoundSql(null)));
+
+    List<ParameterMapping> mappings = List.of(
+        new ParameterMapping.Builder(config, "__frch_id_0", Object.class).build(),
+        new ParameterMapping.Builder(config, "result", Object.class).mode(ParameterMode.OUT).build());
+    BoundSql boundSql = new BoundSql(config, "SELECT ?", mappings, params);
+    boundSql.setAdditionalParameter("__frch_id_0", 7);
+    assertEquals(List.of(7), ExplainInterceptor.bindValues(config, params, boundSql));
+  }
+
+  @Test
+  @DisplayName("Interceptor: heavyStatements times executions even when debug is disabled")
+  void interceptShouldTrackHeavyStatementsWithoutExplain() throws Throwable {
+    Log log = mock(Log.class);
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getStatementLog()).thenReturn(log);
+    when(ms.getId()).thenReturn("UserMapper.find");
+    when(ms.getBoundSql(null)).thenReturn(new BoundSql(sqlSessionFactory.getConfiguration(), "SELECT 1",
+        Collections.<ParameterMapping>emptyList(), null));
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null});
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    interceptor.setProperties(properties);
+    interceptor.intercept(invocation);
+
+    HeavyStatement statement = interceptor.getHeavyStatementTracker().getTop(1).get(0);
+    assertEquals("UserMapper.find", statement.getStatementId());
+    assertEquals("SELECT 1", statement.getSql());
+    assertEquals(1, statement.getCalls());
+    assertTrue(Double.isNaN(statement.getAverageEstimatedCost()));
+  }
+
+  @Test
+  @DisplayName("Interceptor: heavyStatements records the cost of the explained plan")
+  void interceptShouldTrackHeavyStatementsWithPlanCost() throws Throwable {
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    BoundSql boundSql = new BoundSql(sqlSessionFactory.getConfiguration(), "SELECT 1",
+        Collections.<ParameterMapping>emptyList(), null);
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getStatementLog()).thenReturn(log);
+    when(ms.getStatementType()).thenReturn(StatementType.PREPARED);
+    when(ms.getId()).thenReturn("UserMapper.find");
+    when(ms.getBoundSql(null)).thenReturn(boundSql);
+    Executor executor = mock(Executor.class);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null});
+    when(invocation.getTarget()).thenReturn(executor);
+
+    ExplainInterceptor interceptor = spy(new ExplainInterceptor());
+    doReturn(new ExplainPlan(List.of(new PlanNode("Result", null, null, 1, 4.5, Collections.<PlanNode>emptyList())),
+        Collections.<MissingIndex>emptyList())).when(interceptor).executeExplain(ms, null, boundSql, executor);
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    properties.setProperty("heavyStatements.weight", "cost");
+    interceptor.setProperties(properties);
+    interceptor.intercept(invocation);
+
+    HeavyStatement statement = interceptor.getHeavyStatementTracker().getTop(1).get(0);
+    assertEquals(4.5, statement.getWeight());
+    assertEquals(4.5, statement.getAverageEstimatedCost());
+  }
+
+  @Test
+  @DisplayName("Interceptor: query with a BoundSql argument reuses it instead of rebuilding the SQL")
+  void interceptShouldReuseBoundSqlArgument() throws Throwable {
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    BoundSql boundSql = new BoundSql(sqlSessionFactory.getConfiguration(), "SELECT 1",
+        Collections.<ParameterMapping>emptyList(), null);
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getStatementLog()).thenReturn(log);
+    when(ms.getStatementType()).thenReturn(StatementType.PREPARED);
+    when(ms.getId()).thenReturn("UserMapper.find");
+    Executor executor = mock(Executor.class);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null, RowBounds.DEFAULT, null, null, boundSql});
+    when(invocation.getTarget()).thenReturn(executor);
+
+    ExplainInterceptor interceptor = spy(new ExplainInterceptor());
+    doReturn(null).when(interceptor).executeExplain(ms, null, boundSql, executor);
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    interceptor.setProperties(properties);
+    interceptor.intercept(invocation);
+
+    verify(ms, never()).getBoundSql(any());
+    verify(interceptor).executeExplain(ms, null, boundSql, executor);
+    assertEquals("SELECT 1", interceptor.getHeavyStatementTracker().getTop(1).get(0).getSql());
+  }
+
+  @Test
+  @DisplayName("Interceptor: reuses the SQL prepared during the execution instead of rebuilding it")
+  void interceptShouldReusePreparedSql() throws Throwable {
+    Configuration config = sqlSessionFactory.getConfiguration();
+    BoundSql outerSql = new BoundSql(config, "UPDATE t SET a = ?", Collections.<ParameterMapping>emptyList(), null);
+    BoundSql keySql = new BoundSql(config, "SELECT NEXTVAL('seq')", Collections.<ParameterMapping>emptyList(), null);
+    BoundSql nestedSql = new BoundSql(config, "SELECT 2", Collections.<ParameterMapping>emptyList(), null);
+    MappedStatement update = mock(MappedStatement.class);
+    when(update.getStatementLog()).thenReturn(mock(Log.class));
+    when(update.getId()).thenReturn("T.update");
+    MappedStatement selectKey = mock(MappedStatement.class);
+    when(selectKey.getStatementLog()).thenReturn(mock(Log.class));
+    when(selectKey.getId()).thenReturn("T.update!selectKey");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    interceptor.setProperties(properties);
+    Invocation keyInvocation = mock(Invocation.class);
+    when(keyInvocation.getArgs()).thenReturn(new Object[]{selectKey, null});
+    when(keyInvocation.proceed()).thenAnswer(call -> interceptor.intercept(prepare(keySql)));
+    Invocation updateInvocation = mock(Invocation.class);
+    when(updateInvocation.getArgs()).thenReturn(new Object[]{update, null});
+    when(updateInvocation.proceed()).thenAnswer(call -> {
+      interceptor.intercept(keyInvocation);
+      interceptor.intercept(prepare(outerSql));
+      return interceptor.intercept(prepare(nestedSql));
+    });
+
+    interceptor.intercept(updateInvocation);
+    interceptor.intercept(prepare(nestedSql));
+
+    verify(update, never()).getBoundSql(any());
+    verify(selectKey, never()).getBoundSql(any());
+    Map<String, String> sqlById = new HashMap<>();
+    for (HeavyStatement statement : interceptor.getHeavyStatementTracker().getTop(10)) {
+      sqlById.put(statement.getStatementId(), statement.getSql());
+    }
+    assertEquals(Map.of("T.update", "UPDATE t SET a = ?", "T.update!selectKey", "SELECT NEXTVAL('seq')"), sqlById);
+  }
+
+  private static Invocation prepare(BoundSql boundSql) throws Throwable {
+    StatementHandler handler = mock(StatementHandler.class);
+    when(handler.getBoundSql()).thenReturn(boundSql);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getTarget()).thenReturn(handler);
+    return invocation;
+  }
+
+  @Test
+  @DisplayName("Interceptor: a failure after the execution is logged and the result is still returned")
+  void interceptShouldNotFailStatementWhenRecordingFails() throws Throwable {
+    Log log = mock(Log.class);
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getStatementLog()).thenReturn(log);
+    when(ms.getBoundSql(null)).thenThrow(new IllegalStateException("OGNL failure"));
+    Object expected = new Object();
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null});
+    when(invocation.proceed()).thenReturn(expected);
+
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    interceptor.setProperties(properties);
+
+    assertSame(expected, interceptor.intercept(invocation));
+    verify(log).debug("<== ExplainPlan: Failed to analyze the execution: OGNL failure");
+  }
+
+  @Test
+  @DisplayName("Interceptor: an execution that throws is propagated without explaining or recording it")
+  void interceptShouldPropagateExecutionFailure() throws Throwable {
+    MappedStatement ms = mock(MappedStatement.class);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null});
+    when(invocation.proceed()).thenThrow(new IllegalStateException("deadlock"));
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> interceptor.intercept(invocation));
+    assertEquals("deadlock", e.getMessage());
+    verify(ms, never()).getStatementLog();
+  }
+
+  @Test
+  @DisplayName("setProperties: heavyStatements periodic report is replaced on reconfiguration")
+  void setPropertiesShouldConfigureHeavyStatements() {
+    ExplainInterceptor interceptor = new ExplainInterceptor();
+    Properties properties = new Properties();
+    properties.setProperty("heavyStatements", "true");
+    properties.setProperty("heavyStatements.capacity", "8");
+    properties.setProperty("heavyStatements.logInterval", "3600");
+    properties.setProperty("heavyStatements.topK", "3");
+    interceptor.setProperties(properties);
+    HeavyStatementTracker tracker = interceptor.getHeavyStatementTracker();
+    assertTrue(tracker.isReporting());
+
+    interceptor.setProperties(new Properties());
+    assertFalse(tracker.isReporting());
+    assertNull(interceptor.getHeavyStatementTracker());
+
+    properties.remove("heavyStatements.logInterval");
+    interceptor.setProperties(properties);
+    assertFalse(interceptor.getHeavyStatementTracker().isReporting());
+  }
+
+  @Test
+  @DisplayName("Interceptor: policy rules override the log level")
+  void interceptShouldApplyExplainPolicies() throws Throwable {
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    BoundSql boundSql = new BoundSql(sqlSessionFactory.getConfiguration(), "SELECT 1",
+        Collections.<ParameterMapping>emptyList(), null);
+    MappedStatement ping = mock(MappedStatement.class);
+    when(ping.getStatementLog()).thenReturn(log);
+    when(ping.getId()).thenReturn("HealthMapper.ping");
+    MappedStatement report = mock(MappedStatement.class);
+    when(report.getStatementLog()).thenReturn(mock(Log.class));
+    when(report.getId()).thenReturn("ReportMapper.monthly");
+    when(report.getBoundSql(null)).thenReturn(boundSql);
+    Executor executor = mock(Executor.class);
+    Invocation pingInvocation = mock(Invocation.class);
+    when(pingInvocation.getArgs()).thenReturn(new Object[]{ping, null});
+    Invocation reportInvocation = mock(Invocation.class);
+    when(reportInvocation.getArgs()).thenReturn(new Object[]{report, null});
+    when(reportInvocation.getTarget()).thenReturn(executor);
+
+    Log policyLog = mock(Log.class);
+    when(policyLog.isDebugEnabled()).thenReturn(true);
+    ExplainInterceptor interceptor = spy(new ExplainInterceptor(new ExplainDialectResolver(), policyLog));
+    doReturn(null).when(interceptor).executeExplain(report, null, boundSql, executor);
+    Properties properties = new Properties();
+    properties.setProperty("policy.1.id", "HealthMapper.*");
+    properties.setProperty("policy.1.action", "never");
+    properties.setProperty("policy.2.id", "ReportMapper.*");
+    properties.setProperty("policy.2.action", "always");
+    interceptor.setProperties(properties);
+    interceptor.intercept(pingInvocation);
+    interceptor.intercept(reportInvocation);
+
+    verify(ping, never()).getBoundSql(null);
+    verify(interceptor).executeExplain(report, null, boundSql, executor);
+  }
+
+  @Test
+  @DisplayName("Interceptor: policy-selected statements are not explained when nothing uses the plan")
+  void interceptShouldSkipExplainWithoutPlanConsumer() throws Throwable {
+    BoundSql boundSql = new BoundSql(sqlSessionFactory.getConfiguration(), "SELECT 1",
+        Collections.<ParameterMapping>emptyList(), null);
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getStatementLog()).thenReturn(mock(Log.class));
+    when(ms.getId()).thenReturn("ReportMapper.monthly");
+    when(ms.getBoundSql(null)).thenReturn(boundSql);
+    Executor executor = mock(Executor.class);
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[]{ms, null});
+    when(invocation.getTarget()).thenReturn(executor);
+
+    ExplainInterceptor interceptor = spy(new ExplainInterceptor(new ExplainDialectResolver(), mock(Log.class)));
+    doReturn(null).when(interceptor).executeExplain(ms, null, boundSql, executor);
+    String[][] configurations = {
+        {}, {"heavyStatements", "true"},
+        {"indexAdvisor", "true"}, {"planDivergence", "true"}, {"heavyStatements.weight", "cost"}};
+    int[] expectedExplains = {0, 0, 1, 2, 3};
+    for (int i = 0; i < configurations.length; i++) {
+      Properties properties = new Properties();
+      properties.setProperty("policy.1.action", "always");
+      if (configurations[i].length > 0) {
+        properties.setProperty("heavyStatements", "true");
+        properties.setProperty(configurations[i][0], configurations[i][1]);
+      }
+      interceptor.setProperties(properties);
+      interceptor.intercept(invocation);
+      verify(interceptor, times(expectedExplains[i])).executeExplain(ms, null, boundSql, executor);
+    }
+  }
+
+  @Test
+  @DisplayName("executeExplain: sampled plans go to the policy logger and count for 1/rate in the index advisor")
+  void executeExplainShouldWeightSampledPlans() throws Exception {
+    Log log = mock(Log.class);
+    Log policyLog = mock(Log.class);
+    when(policyLog.isDebugEnabled()).thenReturn(true);
+    ResultSet rs = ResultSets.of(new String[] {"table", "type", "key", "rows"},
+        new String[] {"users", "ALL", null, "100"});
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    Executor executor = newMockExecutor(conn);
+
+    Configuration config = sqlSessionFactory.getConfiguration();
+    MappedStatement realMs = config.getMappedStatement("io.github.nakasho.mybatis.explain.selectUser");
+    MappedStatement ms = cloneMsWithLogAndDatabaseId(realMs, log, "mysql");
+
+    ExplainInterceptor interceptor = new ExplainInterceptor(new ExplainDialectResolver(), policyLog);
+    Properties properties = new Properties();
+    properties.setProperty("indexAdvisor", "true");
+    properties.setProperty("policy.1.action", "sample");
+    properties.setProperty("policy.1.rate", "0.25");
+    interceptor.setProperties(properties);
+    interceptor.executeExplain(ms, 1, realMs.getBoundSql(1), executor);
+
+    IndexCandidate candidate = interceptor.getIndexAdvisor().getCandidates().get(0);
+    assertEquals(4, candidate.getCalls());
+    assertEquals(400.0, candidate.getScore());
+    verify(policyLog).debug(startsWith("<== ExplainPlan: "));
     verify(log, never()).debug(anyString());
   }
 
@@ -498,6 +1266,15 @@ class ExplainInterceptorTest {
         .newTransaction(config.getEnvironment().getDataSource(), null, false));
   }
 
+  private static Connection mockExplainConnection() throws SQLException {
+    ResultSet rs = ResultSets.of(new String[] {"QUERY PLAN"});
+    PreparedStatement pstmt = mock(PreparedStatement.class);
+    when(pstmt.executeQuery()).thenReturn(rs);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+    return conn;
+  }
+
   private static Executor newMockExecutor(Connection conn) throws SQLException {
     Transaction tx = mock(Transaction.class);
     when(tx.getConnection()).thenReturn(conn);
@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static io.github.nakasho.mybatis.explain.Plans.node;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ExplainPlanTest {
+
+  @Test
+  @DisplayName("PlanNode: toString omits unknown estimates")
+  void planNodeToStringShouldOmitUnknownEstimates() {
+    assertEquals("Sort", node("Sort", null, null, Double.NaN, Double.NaN).toString());
+    assertEquals("Sort (rows=10.0)", node("Sort", null, null, 10, Double.NaN).toString());
+    assertEquals("Sort (cost=2.5)", node("Sort", null, null, Double.NaN, 2.5).toString());
+    assertEquals("Sort (rows=10.0 cost=2.5)", node("Sort", null, null, 10, 2.5).toString());
+  }
+
+  @Test
+  @DisplayName("getEstimatedCost: NaN when no root reports a cost")
+  void estimatedCostShouldBeNaNWithoutCosts() {
+    assertTrue(Double.isNaN(new ExplainPlan(Collections.<PlanNode>emptyList(),
+        Collections.<MissingIndex>emptyList()).getEstimatedCost()));
+    assertTrue(Double.isNaN(new ExplainPlan(List.of(node("Scan", null, null, 1, Double.NaN)),
+        Collections.<MissingIndex>emptyList()).getEstimatedCost()));
+  }
+
+  @Test
+  @DisplayName("getEstimatedCost: sums known root costs")
+  void estimatedCostShouldSumRootCosts() {
+    ExplainPlan plan = new ExplainPlan(List.of(node("A", null, null, 1, 1.5),
+        node("B", null, null, 1, Double.NaN), node("C", null, null, 1, 2.0)), Collections.<MissingIndex>emptyList());
+
+    assertEquals(3.5, plan.getEstimatedCost());
+  }
+}
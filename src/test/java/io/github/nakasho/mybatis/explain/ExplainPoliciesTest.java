@@ -0,0 +1,188 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExplainPoliciesTest {
+
+  private final Configuration configuration = new Configuration();
+
+  private MappedStatement statement(String id, SqlCommandType command, String databaseId) {
+    return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "SELECT 1"), command)
+        .databaseId(databaseId).build();
+  }
+
+  private static Properties properties(String... keyValues) {
+    Properties properties = new Properties();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      properties.setProperty(keyValues[i], keyValues[i + 1]);
+    }
+    return properties;
+  }
+
+  @Test
+  @DisplayName("no rules: the log level decides")
+  void shouldDefaultToLogLevelWithoutRules() {
+    ExplainPolicies policies = ExplainPolicies.parse(new Properties());
+
+    assertSame(ExplainPolicies.NONE, policies);
+    assertSame(ExplainPolicy.DEFAULT, policies.resolve(statement("A.find", SqlCommandType.SELECT, null)));
+  }
+
+  @Test
+  @DisplayName("first matching rule wins, in ascending rule number")
+  void shouldApplyFirstMatchingRule() {
+    ExplainPolicies policies = ExplainPolicies.parse(properties(
+        "policy.10.id", "ReportMapper.*", "policy.10.action", "always",
+        "policy.2.id", "HealthMapper.ping", "policy.2.action", "NEVER",
+        "policy.30.id", "OrderMapper.find?y*", "policy.30.action", "sample", "policy.30.rate", "0.01",
+        "policy.40.id", "regex:.*\\.(insert|update)\\w*", "policy.40.command", "insert, UPDATE",
+        "policy.40.action", "always",
+        "policy.50.databaseId", "post*", "policy.50.action", "never",
+        "policy.60.action", "default",
+        "policy.70.id", "ignored.without.action"));
+
+    assertEquals(6, policies.getRules().size());
+    assertEquals(ExplainPolicy.Action.ALWAYS,
+        policies.resolve(statement("ReportMapper.monthly", SqlCommandType.SELECT, null)).getAction());
+    assertEquals(ExplainPolicy.Action.NEVER,
+        policies.resolve(statement("HealthMapper.ping", SqlCommandType.SELECT, null)).getAction());
+    ExplainPolicy sample = policies.resolve(statement("OrderMapper.findByCustomer", SqlCommandType.SELECT, null));
+    assertEquals(ExplainPolicy.Action.SAMPLE, sample.getAction());
+    assertEquals(0.01, sample.getRate());
+    assertEquals(ExplainPolicy.Action.ALWAYS,
+        policies.resolve(statement("UserMapper.updateName", SqlCommandType.UPDATE, null)).getAction());
+    assertEquals(ExplainPolicy.Action.DEFAULT,
+        policies.resolve(statement("UserMapper.updateName", SqlCommandType.DELETE, null)).getAction());
+    assertEquals(ExplainPolicy.Action.NEVER,
+        policies.resolve(statement("UserMapper.find", SqlCommandType.SELECT, "PostgreSQL")).getAction());
+    assertEquals(ExplainPolicy.Action.DEFAULT,
+        policies.resolve(statement("UserMapper.find", SqlCommandType.SELECT, "mysql")).getAction());
+    assertEquals(ExplainPolicy.Action.DEFAULT,
+        policies.resolve(statement("OrderMapper.findAll", SqlCommandType.SELECT, null)).getAction());
+  }
+
+  @Test
+  @DisplayName("reads every key of a rule from the prefix it was written with")
+  void shouldKeepRuleNumberAsWritten() {
+    ExplainPolicies policies = ExplainPolicies.parse(properties(
+        "policy.01.id", "OrderMapper.*", "policy.01.action", "sample", "policy.01.rate", "0.25"));
+
+    ExplainPolicy sample = policies.resolve(statement("OrderMapper.find", SqlCommandType.SELECT, null));
+    assertEquals(ExplainPolicy.Action.SAMPLE, sample.getAction());
+    assertEquals(0.25, sample.getRate());
+    assertEquals(4.0, sample.getSamplingWeight());
+    assertEquals(1.0, ExplainPolicy.DEFAULT.getSamplingWeight());
+  }
+
+  @Test
+  @DisplayName("memoizes the resolved policy per MappedStatement instance")
+  void shouldMemoizePerStatement() {
+    ExplainPolicies policies = ExplainPolicies.parse(properties("policy.1.id", "A.*", "policy.1.action", "never"));
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getId()).thenReturn("A.find");
+
+    ExplainPolicy first = policies.resolve(ms);
+    assertSame(first, policies.resolve(ms));
+    verify(ms, times(1)).getId();
+
+    MappedStatement other = mock(MappedStatement.class);
+    when(other.getId()).thenReturn("B.find");
+    assertSame(ExplainPolicy.DEFAULT, policies.resolve(other));
+    assertSame(first, policies.resolve(ms));
+  }
+
+  @Test
+  @DisplayName("loads rules from a classpath or file policy file, inline properties overriding")
+  void shouldLoadPolicyFile(@TempDir Path dir) throws Exception {
+    ExplainPolicies fromClasspath = ExplainPolicies.parse(properties(
+        "policyFile", "classpath:explain-policy.properties", "policy.20.rate", "0.5"));
+
+    assertEquals(2, fromClasspath.getRules().size());
+    assertEquals(ExplainPolicy.Action.NEVER,
+        fromClasspath.resolve(statement("HealthMapper.ping", SqlCommandType.SELECT, null)).getAction());
+    assertEquals(0.5, fromClasspath.resolve(statement("OrderMapper.find", SqlCommandType.SELECT, null)).getRate());
+
+    Path file = dir.resolve("policy.properties");
+    Files.writeString(file, "policy.1.action=always\n");
+    ExplainPolicies fromFile = ExplainPolicies.parse(properties("policyFile", file.toString()));
+    assertEquals(ExplainPolicy.Action.ALWAYS,
+        fromFile.resolve(statement("Any.thing", SqlCommandType.SELECT, null)).getAction());
+  }
+
+  @Test
+  @DisplayName("rejects invalid rules and unreadable policy files")
+  void shouldRejectInvalidConfiguration() {
+    IllegalArgumentException action = assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "sometimes")));
+    assertTrue(action.getMessage().startsWith("Invalid explain policy policy.1.*: "));
+    IllegalArgumentException rate = assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "sample")));
+    assertEquals("Invalid explain policy policy.1.*: rate is required for sample", rate.getMessage());
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "always", "policy.01.action", "never")));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "sample", "policy.1.rate", "2")));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "sample", "policy.1.rate", "-0.1")));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "sample", "policy.1.rate", "NaN")));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "always", "policy.1.command", "MERGE")));
+    assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policy.1.action", "always", "policy.1.id", "regex:(")));
+    IllegalArgumentException file = assertThrows(IllegalArgumentException.class,
+        () -> ExplainPolicies.parse(properties("policyFile", "classpath:missing-policy.properties")));
+    assertTrue(file.getMessage().startsWith("Cannot read explain policy file classpath:missing-policy.properties"));
+  }
+
+  @Test
+  @DisplayName("policy decisions")
+  void policyShouldDecide() {
+    Log debug = mock(Log.class);
+    when(debug.isDebugEnabled()).thenReturn(true);
+    Log quiet = mock(Log.class);
+
+    assertTrue(ExplainPolicy.DEFAULT.shouldExplain(debug));
+    assertFalse(ExplainPolicy.DEFAULT.shouldExplain(quiet));
+    assertTrue(new ExplainPolicy(ExplainPolicy.Action.ALWAYS, 1).shouldExplain(quiet));
+    assertFalse(new ExplainPolicy(ExplainPolicy.Action.NEVER, 1).shouldExplain(debug));
+    assertTrue(new ExplainPolicy(ExplainPolicy.Action.SAMPLE, 1).shouldExplain(quiet));
+    assertFalse(new ExplainPolicy(ExplainPolicy.Action.SAMPLE, 0).shouldExplain(debug));
+  }
+}
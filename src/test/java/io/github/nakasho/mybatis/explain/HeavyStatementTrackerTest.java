@@ -0,0 +1,228 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HeavyStatementTrackerTest {
+
+  @Test
+  @DisplayName("ranks statements by execution time")
+  void shouldRankByLatency() {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(16, HeavyStatementTracker.Weight.LATENCY);
+    tracker.record("A.light", "SELECT 1", 1_000_000, Double.NaN);
+    tracker.record("A.heavy", "SELECT 2", 5_000_000, 10);
+    tracker.record("A.heavy", "SELECT  2", 3_000_000, Double.NaN);
+
+    List<HeavyStatement> top = tracker.getTop(1);
+    assertEquals(1, top.size());
+    HeavyStatement heavy = top.get(0);
+    assertEquals("A.heavy", heavy.getStatementId());
+    assertEquals("SELECT 2", heavy.getSql());
+    assertEquals(8_000_000.0, heavy.getWeight());
+    assertEquals(0.0, heavy.getError());
+    assertEquals(2, heavy.getCalls());
+    assertEquals(8_000_000, heavy.getTotalTimeNanos());
+    assertEquals(10.0, heavy.getAverageEstimatedCost());
+    assertTrue(Double.isNaN(tracker.getTop(2).get(1).getAverageEstimatedCost()));
+
+    String report = tracker.report(5);
+    assertTrue(report.startsWith("Heavy statements by latency: top 2"));
+    assertTrue(report.contains("1. A.heavy weight=8000000.0 (error=0.0) calls=2 timeMs=8 avgCost=10.0 sql=SELECT 2"));
+    assertTrue(report.contains("2. A.light"));
+  }
+
+  @Test
+  @DisplayName("ranks statements by estimated cost, ignoring executions that were not explained")
+  void shouldRankByCost() {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(16, HeavyStatementTracker.Weight.COST);
+    tracker.record("A.slow", "SELECT 1", 9_000_000, Double.NaN);
+    tracker.record("A.costly", "SELECT 2", 1, 500);
+    tracker.record("A.costly", "SELECT 2", 1, Double.NaN);
+
+    List<HeavyStatement> top = tracker.getTop(2);
+    assertEquals(1, top.size());
+    assertEquals("A.costly", top.get(0).getStatementId());
+    assertEquals(500.0, top.get(0).getWeight());
+    assertEquals(1, top.get(0).getCalls());
+    assertTrue(tracker.report(1).startsWith("Heavy statements by cost: top 1"));
+  }
+
+  @Test
+  @DisplayName("fingerprints a static SQL source once per mapped statement")
+  void shouldCacheStaticFingerprint() {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(16, HeavyStatementTracker.Weight.LATENCY);
+    MappedStatement raw = mappedStatement("A.raw", mock(RawSqlSource.class), "SELECT  1");
+    MappedStatement fixed = mappedStatement("A.static", mock(StaticSqlSource.class), "SELECT 2");
+    for (int i = 0; i < 3; i++) {
+      tracker.record(raw, null, null, 1, Double.NaN);
+      tracker.record(fixed, null, boundSql("SELECT 2"), 1, Double.NaN);
+    }
+
+    verify(raw).getBoundSql(null);
+    verify(fixed, never()).getBoundSql(null);
+    List<HeavyStatement> top = tracker.getTop(2);
+    assertEquals("A.raw", top.get(0).getStatementId());
+    assertEquals("SELECT 1", top.get(0).getSql());
+    assertEquals(3, top.get(0).getCalls());
+    assertEquals(3, top.get(1).getCalls());
+  }
+
+  @Test
+  @DisplayName("fingerprints a dynamic SQL source on every execution, from the given SQL when known")
+  void shouldFingerprintDynamicSqlPerExecution() {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(16, HeavyStatementTracker.Weight.LATENCY);
+    MappedStatement ms = mappedStatement("A.dynamic", mock(SqlSource.class), "SELECT 1 WHERE a IN (?)");
+    tracker.record(ms, null, null, 1, Double.NaN);
+    tracker.record(ms, null, boundSql("SELECT 1 WHERE a IN (?, ?)"), 1, Double.NaN);
+
+    verify(ms).getBoundSql(null);
+    assertEquals(2, tracker.getTop(10).size());
+
+    HeavyStatementTracker costs = new HeavyStatementTracker(16, HeavyStatementTracker.Weight.COST);
+    costs.record(ms, null, null, 1, Double.NaN);
+    assertTrue(costs.getTop(10).isEmpty());
+    verify(ms).getBoundSql(null);
+  }
+
+  @Test
+  @DisplayName("keeps the memory fixed and the heavy hitters monitored")
+  void shouldEvictLightestStatement() {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(1, HeavyStatementTracker.Weight.LATENCY);
+    tracker.record("heavy", "SELECT 1", 100, Double.NaN);
+    tracker.record("tail1", "SELECT 1", 1, Double.NaN);
+    tracker.record("tail2", "SELECT 1", 1, Double.NaN);
+
+    List<HeavyStatement> top = tracker.getTop(10);
+    assertEquals(1, top.size());
+    assertEquals("tail2", top.get(0).getStatementId());
+    assertEquals(102.0, top.get(0).getWeight());
+    assertEquals(101.0, top.get(0).getError());
+    assertEquals(1, top.get(0).getCalls());
+
+    HeavyStatementTracker striped = new HeavyStatementTracker(40, HeavyStatementTracker.Weight.LATENCY);
+    for (int i = 0; i < 1000; i++) {
+      striped.record("tail" + i, "SELECT ?", 1, Double.NaN);
+      striped.record("hot", "SELECT ?", 100, Double.NaN);
+    }
+    assertTrue(striped.getTop(Integer.MAX_VALUE).size() <= 40);
+    assertEquals("hot", striped.getTop(1).get(0).getStatementId());
+  }
+
+  @Test
+  @DisplayName("accepts concurrent updates")
+  void shouldAcceptConcurrentUpdates() throws Exception {
+    HeavyStatementTracker tracker = new HeavyStatementTracker(65, HeavyStatementTracker.Weight.LATENCY);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            tracker.record("S" + (i % 8), "SELECT ?", 1, Double.NaN);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    long calls = 0;
+    for (HeavyStatement statement : tracker.getTop(8)) {
+      calls += statement.getCalls();
+    }
+    assertEquals(4000, calls);
+  }
+
+  @Test
+  @DisplayName("fingerprint: collapses whitespace and parameter lists")
+  void fingerprintShouldNormalizeSql() {
+    assertEquals("SELECT * FROM t WHERE id IN (?, ...) AND a = ?",
+        HeavyStatementTracker.fingerprint(" SELECT *\n  FROM t WHERE id IN (?,?, ?) AND a = ? "));
+    assertEquals(HeavyStatementTracker.fingerprint("IN (?, ?)"), HeavyStatementTracker.fingerprint("IN (?,?,?,?)"));
+    assertEquals("f(? , x) g(?, ...)", HeavyStatementTracker.fingerprint("f(? , x)\tg(?\n,\n?)"));
+    assertEquals("VALUES (?, ...),", HeavyStatementTracker.fingerprint("VALUES (?, ?),"));
+    assertEquals("? ,", HeavyStatementTracker.fingerprint("? ,"));
+    assertEquals("", HeavyStatementTracker.fingerprint("  "));
+  }
+
+  @Test
+  @DisplayName("periodic report logs the top statements until it is stopped")
+  void shouldScheduleReport() {
+    Log log = mock(Log.class);
+    HeavyStatementTracker tracker = new HeavyStatementTracker(4, HeavyStatementTracker.Weight.LATENCY, log);
+    tracker.record("A.find", "SELECT 1", 5, Double.NaN);
+    tracker.stopReporting();
+    assertFalse(tracker.isReporting());
+
+    tracker.startReporting(3, 1, TimeUnit.HOURS);
+    tracker.startReporting(3, 1, TimeUnit.MILLISECONDS);
+    assertTrue(tracker.isReporting());
+    verify(log, timeout(5000).atLeastOnce()).debug(tracker.report(3));
+
+    tracker.stopReporting();
+    assertFalse(tracker.isReporting());
+  }
+
+  @Test
+  @DisplayName("rejects a non-positive capacity")
+  void shouldRejectInvalidCapacity() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new HeavyStatementTracker(0, HeavyStatementTracker.Weight.LATENCY));
+  }
+
+  private static MappedStatement mappedStatement(String id, SqlSource sqlSource, String sql) {
+    MappedStatement ms = mock(MappedStatement.class);
+    when(ms.getId()).thenReturn(id);
+    when(ms.getSqlSource()).thenReturn(sqlSource);
+    when(ms.getBoundSql(null)).thenReturn(boundSql(sql));
+    return ms;
+  }
+
+  private static BoundSql boundSql(String sql) {
+    return new BoundSql(new Configuration(), sql, Collections.<ParameterMapping>emptyList(), null);
+  }
+}
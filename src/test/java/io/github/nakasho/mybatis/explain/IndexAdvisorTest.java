@@ -0,0 +1,233 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static io.github.nakasho.mybatis.explain.Plans.node;
+import static io.github.nakasho.mybatis.explain.Plans.plan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IndexAdvisorTest {
+
+  private final IndexAdvisor advisor = new IndexAdvisor();
+
+  @Test
+  @DisplayName("full scan: equality, then ordering, then the first range column")
+  void shouldSuggestEsrIndexForFullScan() {
+    advisor.record("UserMapper.search",
+        "SELECT * FROM users WHERE status = ? AND age > ? AND score < ? ORDER BY created_at",
+        plan(node("Sort", null, null, 10, 30, node("Seq Scan", "public.users", null, 10, 20))));
+
+    List<IndexCandidate> candidates = advisor.getCandidates();
+    assertEquals(1, candidates.size());
+    IndexCandidate candidate = candidates.get(0);
+    assertEquals("users", candidate.getTable());
+    assertEquals(List.of("status", "created_at", "age"), candidate.getColumns());
+    assertEquals(1, candidate.getCalls());
+    assertEquals(30.0, candidate.getScore());
+    assertEquals(30.0, candidate.getEstimatedCostSaved());
+    assertEquals(Set.of("UserMapper.search"), candidate.getStatementIds());
+    assertEquals("CREATE INDEX idx_users_status_created_at_age ON users (status, created_at, age)",
+        candidate.toCreateIndexSql());
+  }
+
+  @Test
+  @DisplayName("weighted executions count as the executions they stand for")
+  void shouldWeightSampledExecutions() {
+    advisor.record("OrderMapper.find", "SELECT * FROM orders WHERE customer_id = ?",
+        plan(node("Seq Scan", "orders", null, 100, 50)), 4);
+    advisor.record("OrderMapper.find", "SELECT * FROM orders WHERE customer_id = ?",
+        plan(node("Seq Scan", "orders", null, 100, 50)));
+
+    IndexCandidate candidate = advisor.getCandidates().get(0);
+    assertEquals(5, candidate.getCalls());
+    assertEquals(250.0, candidate.getScore());
+    assertEquals(50.0, candidate.getEstimatedCostSaved());
+    assertThrows(IllegalArgumentException.class, () -> advisor.record("OrderMapper.find",
+        "SELECT * FROM orders WHERE customer_id = ?", plan(node("Seq Scan", "orders", null, 100, 50)), 0.5));
+  }
+
+  @Test
+  @DisplayName("Oracle: full table access and ORDER BY sort read back from PLAN_TABLE")
+  void shouldReadOraclePlan() throws Exception {
+    ExplainPlan plan = new OracleExplainDialect().readPlan(ResultSets.of(
+        new String[] {"ID", "OPERATION", "OPTIONS", "OBJECT_NAME", "CARDINALITY", "COST", "PARENT_ID"},
+        new String[] {"0", "SELECT STATEMENT", null, null, "120", "40", null},
+        new String[] {"1", "SORT", "ORDER BY", null, "120", "40", "0"},
+        new String[] {"2", "TABLE ACCESS", "FULL", "ORDERS", "120", "31", "1"}));
+    advisor.record("OrderMapper.findByStatus", "SELECT * FROM orders WHERE status = ? ORDER BY created_at", plan);
+
+    IndexCandidate candidate = advisor.getCandidates().get(0);
+    assertEquals("orders", candidate.getTable());
+    assertEquals(List.of("status", "created_at"), candidate.getColumns());
+    assertEquals(40.0, candidate.getEstimatedCostSaved());
+  }
+
+  @Test
+  @DisplayName("MySQL: resolves the aliases reported by the plan to the table")
+  void shouldResolvePlanAliases() throws Exception {
+    ExplainPlan plan = new MySqlExplainDialect().readPlan(ResultSets.of(
+        new String[] {"id", "select_type", "table", "type", "key", "rows", "Extra"},
+        new String[] {"1", "SIMPLE", "o", "ALL", null, "1000", "Using where; Using filesort"},
+        new String[] {"1", "SIMPLE", "c", "eq_ref", "PRIMARY", "1", null}));
+    advisor.record("OrderMapper.findByCustomer",
+        "SELECT o.* FROM orders o JOIN customers AS c ON c.id = o.customer_id"
+            + " WHERE o.status = ? ORDER BY o.created_at", plan);
+
+    List<IndexCandidate> candidates = advisor.getCandidates();
+    assertEquals(1, candidates.size());
+    assertEquals("CREATE INDEX idx_orders_status_created_at ON orders (status, created_at)",
+        candidates.get(0).toCreateIndexSql());
+    assertEquals(2000.0, candidates.get(0).getScore());
+  }
+
+  @Test
+  @DisplayName("hash join: join keys are left out, each table gets its own filter columns")
+  void shouldLeaveJoinKeysOutOfHashJoins() {
+    advisor.record("ReportMapper.regionOrders",
+        "SELECT * FROM orders o JOIN customers c ON o.customer_id = c.id WHERE c.region = ? AND o.status = ?",
+        plan(node("Hash Join", null, null, 100, 300,
+            node("Seq Scan", "orders", null, 10_000, 200),
+            node("Hash", null, null, 50, 60, node("Seq Scan", "customers", null, 50, 60)))));
+
+    List<String> ddl = new ArrayList<>();
+    for (IndexCandidate candidate : advisor.getCandidates()) {
+      ddl.add(candidate.toCreateIndexSql());
+    }
+    assertEquals(List.of("CREATE INDEX idx_orders_status ON orders (status)",
+        "CREATE INDEX idx_customers_region ON customers (region)"), ddl);
+  }
+
+  @Test
+  @DisplayName("nested loop: the scanned inner side gets its join key after the filter columns")
+  void shouldAppendJoinKeysForNestedLoopInner() {
+    advisor.record("ReportMapper.regionOrders",
+        "SELECT * FROM orders o JOIN customers c ON o.customer_id = c.id WHERE c.region = ? AND o.status = ?",
+        plan(node("Nested Loop", null, null, 100, 5000,
+            node("Seq Scan", "customers", null, 50, 60),
+            node("Materialize", null, null, 10_000, 4000, node("Seq Scan", "orders", null, 10_000, 200)))));
+
+    List<String> ddl = new ArrayList<>();
+    for (IndexCandidate candidate : advisor.getCandidates()) {
+      ddl.add(candidate.toCreateIndexSql());
+    }
+    assertEquals(List.of("CREATE INDEX idx_orders_status_customer_id ON orders (status, customer_id)",
+        "CREATE INDEX idx_customers_region ON customers (region)"), ddl);
+  }
+
+  @Test
+  @DisplayName("ranks candidates by cost saved times calls")
+  void shouldRankByCostTimesCalls() {
+    ExplainPlan expensive = plan(node("Table Scan", "[dbo].[orders]", null, 100, 50));
+    ExplainPlan cheap = plan(node("ALL", "users", null, 40, Double.NaN));
+    advisor.record("a", "SELECT * FROM orders WHERE customer_id = ?", expensive);
+    for (int i = 0; i < 3; i++) {
+      advisor.record("b" + (i % 2), "SELECT * FROM users WHERE email = ?", cheap);
+    }
+
+    List<IndexCandidate> candidates = advisor.getCandidates();
+    assertEquals(List.of("users", "orders"), List.of(candidates.get(0).getTable(), candidates.get(1).getTable()));
+    assertEquals(3, candidates.get(0).getCalls());
+    assertEquals(120.0, candidates.get(0).getScore());
+    assertEquals(40.0, candidates.get(0).getEstimatedCostSaved());
+    assertEquals(Set.of("b0", "b1"), candidates.get(0).getStatementIds());
+
+    String report = advisor.report();
+    assertTrue(report.startsWith("Index advisor: 2 candidate(s)"));
+    assertTrue(report.contains("1. CREATE INDEX idx_users_email ON users (email) -- score=120.0, calls=3"));
+    assertTrue(report.contains("2. CREATE INDEX idx_orders_customer_id ON orders (customer_id) -- score=50.0"));
+
+    advisor.reset();
+    assertTrue(advisor.getCandidates().isEmpty());
+  }
+
+  @Test
+  @DisplayName("sort only: ordering columns after equality columns")
+  void shouldSuggestIndexForSort() {
+    advisor.record("s", "SELECT * FROM t WHERE a = ? AND b > ? ORDER BY c",
+        plan(node("filesort", null, null, Double.NaN, Double.NaN, node("ref", "t", "idx_a", 5, Double.NaN))));
+
+    IndexCandidate candidate = advisor.getCandidates().get(0);
+    assertEquals(List.of("a", "c"), candidate.getColumns());
+    assertEquals(1.0, candidate.getScore());
+  }
+
+  @Test
+  @DisplayName("sort weight: own cost, or total cost when children are costlier")
+  void shouldWeighSortByOwnCost() {
+    advisor.record("s", "SELECT * FROM t ORDER BY c",
+        plan(node("Sort", null, null, 5, 12, node("Index Scan", "t", "pk", 5, 10))));
+    advisor.record("s", "SELECT * FROM u ORDER BY c",
+        plan(node("Sort", null, null, 5, 8, node("Index Scan", "u", "pk", 5, 10))));
+    advisor.record("s", "SELECT * FROM v ORDER BY c",
+        plan(node("SORT", null, null, 5, 8, node("IXSCAN", "v", "pk", 5, Double.NaN))));
+
+    List<IndexCandidate> candidates = advisor.getCandidates();
+    assertEquals(List.of("u", "v", "t"),
+        List.of(candidates.get(0).getTable(), candidates.get(1).getTable(), candidates.get(2).getTable()));
+    assertEquals(List.of(8.0, 8.0, 2.0),
+        List.of(candidates.get(0).getScore(), candidates.get(1).getScore(), candidates.get(2).getScore()));
+  }
+
+  @Test
+  @DisplayName("SQLite: SCAN without index and temp B-tree sorts")
+  void shouldRecognizeSqlitePlans() {
+    advisor.record("q", "SELECT * FROM t WHERE a = ? ORDER BY b",
+        plan(node("SCAN", "t", null, Double.NaN, Double.NaN),
+            node("USE TEMP B-TREE FOR ORDER BY", null, null, Double.NaN, Double.NaN)));
+    advisor.record("q", "SELECT * FROM u WHERE a = ?", plan(node("SCAN", "u", "idx_a", Double.NaN, Double.NaN)));
+
+    List<IndexCandidate> candidates = advisor.getCandidates();
+    assertEquals(1, candidates.size());
+    assertEquals(List.of("a", "b"), candidates.get(0).getColumns());
+    assertEquals(2.0, candidates.get(0).getScore());
+  }
+
+  @Test
+  @DisplayName("ignores plans without scans or sorts and tables without usable columns")
+  void shouldIgnoreUnhelpfulPlans() {
+    advisor.record("q", "SELECT * FROM t WHERE a = ?", plan(node("Index Scan", "t", "idx_a", 1, 1)));
+    advisor.record("q", "SELECT * FROM t", plan(node("Seq Scan", "t", null, 1, 1)));
+    advisor.record("q", "SELECT * FROM t WHERE a = ?", plan(node("Seq Scan", null, null, 1, 1)));
+    advisor.record("q", "SELECT * FROM t WHERE a = ?", plan(node("Sort", null, null, 1, 1,
+        node("Index Scan", "t", "idx_a", 1, 1))));
+    advisor.record("q", "SELECT * FROM t JOIN u ON t.id = u.t_id WHERE t.a = ?",
+        plan(node("Seq Scan", "u", null, 1, 0)));
+    advisor.record("q", "SELECT * FROM t ORDER BY c", plan(node("Seq Scan", "t", null, 1, 1)));
+
+    assertTrue(advisor.getCandidates().isEmpty());
+    assertEquals("Index advisor: 0 candidate(s)", advisor.report());
+  }
+
+  @Test
+  @DisplayName("shutdown hook logs the report")
+  void shutdownHookShouldRunReport() throws Exception {
+    Thread hook = advisor.newShutdownHook();
+
+    assertEquals("mybatis-explain-index-advisor", hook.getName());
+    hook.start();
+    hook.join();
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JsonPlanParserTest {
+
+  private static final String POSTGRESQL_PLAN = "[\n"
+      + "  {\n"
+      + "    \"Plan\": {\n"
+      + "      \"Node Type\": \"Hash Join\",\n"
+      + "      \"Parallel Aware\": false,\n"
+      + "      \"Join Type\": \"Inner\",\n"
+      + "      \"Startup Cost\": 1.09,\n"
+      + "      \"Total Cost\": 2.19,\n"
+      + "      \"Plan Rows\": 3,\n"
+      + "      \"Plan Width\": 72,\n"
+      + "      \"Hash Cond\": \"(o.user_id = u.id)\",\n"
+      + "      \"Plans\": [\n"
+      + "        {\n"
+      + "          \"Node Type\": \"Seq Scan\",\n"
+      + "          \"Parent Relationship\": \"Outer\",\n"
+      + "          \"Relation Name\": \"orders\",\n"
+      + "          \"Alias\": \"o\",\n"
+      + "          \"Total Cost\": 1.03,\n"
+      + "          \"Plan Rows\": 3\n"
+      + "        },\n"
+      + "        {\n"
+      + "          \"Node Type\": \"Index Scan\",\n"
+      + "          \"Relation Name\": \"users\",\n"
+      + "          \"Index Name\": \"users_pkey\",\n"
+      + "          \"Total Cost\": 8.17,\n"
+      + "          \"Plan Rows\": 1,\n"
+      + "          \"Output\": [\"u.id\", \"u.name\"]\n"
+      + "        }\n"
+      + "      ]\n"
+      + "    },\n"
+      + "    \"Planning Time\": 0.12,\n"
+      + "    \"Triggers\": []\n"
+      + "  }\n"
+      + "]";
+
+  private static final String MYSQL_PLAN = "{\n"
+      + "  \"query_block\": {\n"
+      + "    \"select_id\": 1,\n"
+      + "    \"cost_info\": {\"query_cost\": \"12.50\"},\n"
+      + "    \"ordering_operation\": {\n"
+      + "      \"using_filesort\": true,\n"
+      + "      \"nested_loop\": [\n"
+      + "        {\"table\": {\"table_name\": \"o\", \"access_type\": \"ALL\", \"rows_examined_per_scan\": 1000,"
+      + " \"possible_keys\": [\"idx_user\"], \"cost_info\": {\"read_cost\": \"9.00\", \"prefix_cost\": \"10.00\"},"
+      + " \"attached_condition\": \"(`o`.`status` = 'open')\"}},\n"
+      + "        {\"table\": {\"table_name\": \"u\", \"access_type\": \"eq_ref\", \"key\": \"PRIMARY\","
+      + " \"rows_examined_per_scan\": 1, \"used_key_parts\": [\"id\"], \"cost_info\": {\"prefix_cost\": \"12.50\"},"
+      + " \"using_index\": false}}\n"
+      + "      ]\n"
+      + "    }\n"
+      + "  }\n"
+      + "}";
+
+  @Test
+  @DisplayName("parse: PostgreSQL FORMAT JSON plan")
+  void parseShouldReadPostgreSqlPlan() throws Exception {
+    ExplainPlan plan = JsonPlanParser.parse(new StringReader(POSTGRESQL_PLAN));
+
+    assertEquals(1, plan.getRoots().size());
+    PlanNode join = plan.getRoots().get(0);
+    assertEquals("Hash Join", join.getOperation());
+    assertEquals(2.19, join.getEstimatedCost());
+    assertEquals(3.0, join.getEstimatedRows());
+    assertEquals(2, join.getChildren().size());
+
+    PlanNode seqScan = join.getChildren().get(0);
+    assertEquals("Seq Scan", seqScan.getOperation());
+    assertEquals("orders", seqScan.getObjectName());
+    assertNull(seqScan.getIndexName());
+
+    PlanNode indexScan = join.getChildren().get(1);
+    assertEquals("users", indexScan.getObjectName());
+    assertEquals("users_pkey", indexScan.getIndexName());
+    assertEquals(8.17, indexScan.getEstimatedCost());
+    assertTrue(plan.getMissingIndexes().isEmpty());
+  }
+
+  @Test
+  @DisplayName("parse: MySQL FORMAT=JSON plan")
+  void parseShouldReadMySqlPlan() throws Exception {
+    ExplainPlan plan = JsonPlanParser.parse(new BufferedReader(new StringReader(MYSQL_PLAN)));
+
+    PlanNode queryBlock = plan.getRoots().get(0);
+    assertEquals("query_block", queryBlock.getOperation());
+    assertEquals(12.5, queryBlock.getEstimatedCost());
+
+    PlanNode filesort = queryBlock.getChildren().get(0);
+    assertEquals("filesort", filesort.getOperation());
+    assertEquals(2, filesort.getChildren().size());
+
+    PlanNode orders = filesort.getChildren().get(0);
+    assertEquals("ALL", orders.getOperation());
+    assertEquals("o", orders.getObjectName());
+    assertEquals(1000.0, orders.getEstimatedRows());
+    assertEquals(10.0, orders.getEstimatedCost());
+
+    PlanNode users = filesort.getChildren().get(1);
+    assertEquals("eq_ref", users.getOperation());
+    assertEquals("PRIMARY", users.getIndexName());
+  }
+
+  @Test
+  @DisplayName("parse: operation keys without details fall back to the key name")
+  void parseShouldFallBackToOperationKey() throws Exception {
+    ExplainPlan plan = JsonPlanParser.parse(new StringReader(
+        "{\"query_block\": {\"cost_info\": {\"query_cost\": \"3\"}, \"message\": {\"cost_info\": {}},"
+            + " \"grouping_operation\": {\"using_filesort\": false, \"table\": {}}}}"));
+
+    assertEquals(3.0, plan.getRoots().get(0).getEstimatedCost());
+    PlanNode grouping = plan.getRoots().get(0).getChildren().get(0);
+    assertEquals("grouping_operation", grouping.getOperation());
+    assertEquals("table", grouping.getChildren().get(0).getOperation());
+  }
+
+  @Test
+  @DisplayName("parse: decodes escapes in captured values and skips them elsewhere")
+  void parseShouldHandleEscapes() throws Exception {
+    ExplainPlan plan = JsonPlanParser.parse(new StringReader(
+        "{\"Node Type\": \"Seq\\tScan\\u0021\", \"Relation Name\": \"\\\"quoted\\\"\\\\\\/\","
+            + " \"Filter\": \"\\b\\f\\n\\r\\u00e9\", \"Total Cost\": null, \"Plan Rows\": 1e3}"));
+
+    PlanNode node = plan.getRoots().get(0);
+    assertEquals("Seq\tScan!", node.getOperation());
+    assertEquals("\"quoted\"\\/", node.getObjectName());
+    assertTrue(Double.isNaN(node.getEstimatedCost()));
+    assertEquals(1000.0, node.getEstimatedRows());
+  }
+
+  @Test
+  @DisplayName("parse: scalar and empty documents yield no operators")
+  void parseShouldAcceptDocumentsWithoutOperators() throws Exception {
+    assertTrue(JsonPlanParser.parse(new StringReader("  []  ")).getRoots().isEmpty());
+    assertTrue(JsonPlanParser.parse(new StringReader("{}")).getRoots().isEmpty());
+    assertTrue(JsonPlanParser.parse(new StringReader("\"plan\"")).getRoots().isEmpty());
+    assertTrue(JsonPlanParser.parse(new StringReader("[true, 1.5, null]")).getRoots().isEmpty());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      "{\"a\": 1",
+      "{\"a\" 1}",
+      "{a: 1}",
+      "{\"a\": 1,}",
+      "[1 2]",
+      "\"unterminated",
+      "\"bad \\x escape\"",
+      "\"bad \\u12g4 escape\"",
+      "[tr\"ue]",
+      "[1:2]",
+      "[1{}]",
+      "[1[]]",
+      "{} {}",
+      "[,]"})
+  @DisplayName("parse: malformed JSON is rejected")
+  void parseShouldRejectMalformedJson(String json) {
+    IOException e = assertThrows(IOException.class, () -> JsonPlanParser.parse(new StringReader(json)));
+    assertTrue(e.getMessage().startsWith("Malformed JSON plan at offset "));
+  }
+
+  @Test
+  @DisplayName("parse: rendered lines follow the operator tree")
+  void parseShouldRenderLines() throws Exception {
+    List<String> lines = JsonPlanParser.parse(new StringReader(POSTGRESQL_PLAN)).toLines();
+
+    assertEquals(List.of(
+        "Hash Join (rows=3.0 cost=2.19)",
+        "  Seq Scan on orders (rows=3.0 cost=1.03)",
+        "  Index Scan on users using users_pkey (rows=1.0 cost=8.17)"), lines);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MySqlExplainDialectTest {
+
+  private final MySqlExplainDialect dialect = new MySqlExplainDialect();
+
+  @Test
+  @DisplayName("matches MySQL, MariaDB and TiDB")
+  void shouldMatchMySqlFamily() {
+    assertTrue(dialect.matchesDatabaseId("mysql"));
+    assertTrue(dialect.matchesDatabaseId("MariaDB"));
+    assertTrue(dialect.matchesDatabaseId("tidb"));
+    assertTrue(dialect.matchesProductName("MySQL"));
+    assertTrue(dialect.matchesProductName("MariaDB"));
+  }
+
+  @Test
+  @DisplayName("supports EXPLAIN ANALYZE and JSON")
+  void shouldReportCapabilities() {
+    assertEquals("EXPLAIN SELECT 1", dialect.getExplainSql("SELECT 1"));
+    assertTrue(dialect.supportsAnalyze());
+    assertEquals("EXPLAIN ANALYZE SELECT 1", dialect.getAnalyzeSql("SELECT 1"));
+    assertTrue(dialect.supportsJsonFormat());
+    assertEquals("EXPLAIN FORMAT=JSON SELECT 1", dialect.getJsonExplainSql("SELECT 1"));
+  }
+
+  @Test
+  @DisplayName("readPlan: one operator per row")
+  void readPlanShouldBuildOperatorPerRow() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(
+        new String[] {"id", "select_type", "table", "type", "key", "rows", "Extra"},
+        new String[] {"1", "SIMPLE", "o", "ALL", null, "1000", "Using where"},
+        new String[] {"1", "SIMPLE", "u", "eq_ref", "PRIMARY", "1", null},
+        new String[] {"1", "SIMPLE", null, null, null, null, "No tables used"}));
+
+    List<PlanNode> roots = plan.getRoots();
+    assertEquals(2, roots.size());
+    assertEquals("ALL", roots.get(0).getOperation());
+    assertEquals("o", roots.get(0).getObjectName());
+    assertNull(roots.get(0).getIndexName());
+    assertEquals(1000.0, roots.get(0).getEstimatedRows());
+    assertEquals("eq_ref", roots.get(1).getOperation());
+    assertEquals("PRIMARY", roots.get(1).getIndexName());
+    assertEquals("id=1, select_type=SIMPLE, table=o, type=ALL, key=null, rows=1000, Extra=Using where",
+        plan.toLines().get(0));
+  }
+
+  @Test
+  @DisplayName("readPlan: wraps rows using filesort in a filesort operator")
+  void readPlanShouldWrapFilesort() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(
+        new String[] {"table", "type", "key", "rows", "Extra"},
+        new String[] {"o", "ALL", null, "1000", "Using where; Using filesort"}));
+
+    PlanNode filesort = plan.getRoots().get(0);
+    assertEquals("filesort", filesort.getOperation());
+    assertEquals(1000.0, filesort.getEstimatedRows());
+    assertEquals("ALL", filesort.getChildren().get(0).getOperation());
+    assertEquals("o", filesort.getChildren().get(0).getObjectName());
+  }
+
+  @Test
+  @DisplayName("readPlan: tolerates missing optional columns")
+  void readPlanShouldTolerateMissingColumns() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(new String[] {"type"}, new String[] {"ALL"}));
+
+    PlanNode node = plan.getRoots().get(0);
+    assertNull(node.getObjectName());
+    assertNull(node.getIndexName());
+    assertTrue(Double.isNaN(node.getEstimatedRows()));
+  }
+
+  @Test
+  @DisplayName("readPlan: no operators without a type column")
+  void readPlanShouldSkipNonTabularOutput() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(new String[] {"EXPLAIN"}, new String[] {"-> Table scan on t"}));
+
+    assertTrue(plan.getRoots().isEmpty());
+    assertEquals(List.of("-> Table scan on t"), plan.toLines());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OracleExplainDialectTest {
+
+  private final OracleExplainDialect dialect = new OracleExplainDialect();
+
+  @Test
+  @DisplayName("tags every explain and reads back and deletes only that explain from PLAN_TABLE")
+  void shouldReadPlanFromPlanTableByStatementId() {
+    String explainSql = dialect.getExplainSql("SELECT 1 FROM DUAL");
+    Matcher matcher = Pattern.compile("EXPLAIN PLAN SET STATEMENT_ID = '(MBX[0-9A-F]{16})' FOR SELECT 1 FROM DUAL")
+        .matcher(explainSql);
+    assertTrue(matcher.matches());
+    String id = matcher.group(1);
+    assertNotEquals(explainSql, dialect.getExplainSql("SELECT 1 FROM DUAL"));
+
+    assertEquals("SELECT ID, OPERATION, OPTIONS, OBJECT_NAME, CARDINALITY, COST, PARENT_ID FROM PLAN_TABLE"
+        + " WHERE STATEMENT_ID = '" + id + "' ORDER BY ID", dialect.getPlanQuery(explainSql));
+    assertEquals("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = '" + id + "'", dialect.getPlanCleanupSql(explainSql));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> dialect.getPlanCleanupSql("EXPLAIN PLAN FOR SELECT 1 FROM DUAL"));
+    assertEquals("Not a tagged Oracle explain statement: EXPLAIN PLAN FOR SELECT 1 FROM DUAL", e.getMessage());
+  }
+
+  @Test
+  @DisplayName("matches Oracle databaseIds and product names")
+  void shouldMatchOracle() {
+    assertTrue(dialect.matchesDatabaseId("oracle"));
+    assertTrue(dialect.matchesDatabaseId("Oracle"));
+    assertTrue(dialect.matchesProductName("Oracle"));
+    assertFalse(dialect.matchesDatabaseId("mysql"));
+  }
+
+  @Test
+  @DisplayName("readPlan: links operators through PARENT_ID with SELECT STATEMENT as the root")
+  void readPlanShouldBuildOperatorTree() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(
+        new String[] {"ID", "OPERATION", "OPTIONS", "OBJECT_NAME", "CARDINALITY", "COST", "PARENT_ID"},
+        new String[] {"0", "SELECT STATEMENT", null, null, "10", "14", null},
+        new String[] {"1", "NESTED LOOPS", null, null, "10", "14", "0"},
+        new String[] {"2", "TABLE ACCESS", "FULL", "ORDERS", "10", "4", "1"},
+        new String[] {"3", "TABLE ACCESS", "BY INDEX ROWID", "USERS", "1", "1", "1"},
+        new String[] {"4", "INDEX", "UNIQUE SCAN", "PK_USERS", "1", "0", "3 "}));
+
+    List<PlanNode> roots = plan.getRoots();
+    assertEquals(1, roots.size());
+    PlanNode root = roots.get(0);
+    assertEquals("SELECT STATEMENT", root.getOperation());
+    assertNull(root.getObjectName());
+    assertEquals(14.0, plan.getEstimatedCost());
+    PlanNode join = root.getChildren().get(0);
+    assertEquals("NESTED LOOPS", join.getOperation());
+    assertEquals(2, join.getChildren().size());
+    PlanNode scan = join.getChildren().get(0);
+    assertEquals("TABLE ACCESS FULL", scan.getOperation());
+    assertEquals("ORDERS", scan.getObjectName());
+    assertNull(scan.getIndexName());
+    assertEquals(10.0, scan.getEstimatedRows());
+    PlanNode indexScan = join.getChildren().get(1).getChildren().get(0);
+    assertEquals("INDEX UNIQUE SCAN", indexScan.getOperation());
+    assertNull(indexScan.getObjectName());
+    assertEquals("PK_USERS", indexScan.getIndexName());
+  }
+}
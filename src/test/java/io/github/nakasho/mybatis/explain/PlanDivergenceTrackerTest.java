@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static io.github.nakasho.mybatis.explain.Plans.node;
+import static io.github.nakasho.mybatis.explain.Plans.plan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PlanDivergenceTrackerTest {
+
+  private final PlanDivergenceTracker tracker = new PlanDivergenceTracker();
+
+  @Test
+  @DisplayName("reports statements whose plan changes with the bind values")
+  void shouldReportDivergentStatement() {
+    ExplainPlan small = plan(node("Index Scan", "orders", "idx_tenant", 10, Double.NaN));
+    ExplainPlan large = plan(node("Seq Scan", "orders", null, 10_000_000, Double.NaN));
+
+    assertFalse(tracker.record("OrderMapper.find", List.of(1), small));
+    assertFalse(tracker.record("OrderMapper.find", List.of(2), small));
+    assertTrue(tracker.record("OrderMapper.find", List.of(99), large));
+    assertFalse(tracker.record("OrderMapper.find", List.of(98), large));
+    assertFalse(tracker.record("OrderMapper.find", List.of(3), small));
+    assertFalse(tracker.record("UserMapper.find", List.of(1), small));
+
+    List<PlanDivergence> divergences = tracker.getDivergentStatements();
+    assertEquals(1, divergences.size());
+    PlanDivergence divergence = divergences.get(0);
+    assertEquals("OrderMapper.find", divergence.getStatementId());
+    PlanDivergence.Variant first = divergence.getVariants().get(0);
+    assertEquals("Index Scan on orders using idx_tenant", first.getFingerprint());
+    assertEquals(3, first.getExecutions());
+    assertEquals(Set.of("rows~1e1"), first.getBuckets());
+    assertEquals("[1]", first.getSampleParameters());
+    PlanDivergence.Variant second = divergence.getVariants().get(1);
+    assertEquals("Seq Scan on orders", second.getFingerprint());
+    assertEquals(Set.of("rows~1e7"), second.getBuckets());
+    assertEquals("[99]", second.getSampleParameters());
+
+    String report = tracker.report();
+    assertTrue(report.startsWith("Plan divergence: 1 statement(s)"));
+    assertTrue(report.contains("OrderMapper.find: 2 plans"));
+    assertTrue(report.contains(
+        "  [Seq Scan on orders] executions=2 buckets=[rows~1e7] parameters=[99]"));
+
+    tracker.reset();
+    assertTrue(tracker.getDivergentStatements().isEmpty());
+  }
+
+  @Test
+  @DisplayName("orders statements by id and variants by executions, then fingerprint")
+  void shouldOrderDivergences() {
+    tracker.record("b", List.of(), plan(node("B", null, null, 1, Double.NaN)));
+    tracker.record("b", List.of(), plan(node("A", null, null, 1, Double.NaN)));
+    tracker.record("a", List.of(), plan(node("X", null, null, 1, Double.NaN)));
+    tracker.record("a", List.of(), plan(node("Y", null, null, 1, Double.NaN)));
+
+    List<PlanDivergence> divergences = tracker.getDivergentStatements();
+    assertEquals("a", divergences.get(0).getStatementId());
+    assertEquals("b", divergences.get(1).getStatementId());
+    assertEquals("A", divergences.get(1).getVariants().get(0).getFingerprint());
+  }
+
+  @Test
+  @DisplayName("bounds the plans per statement and the buckets per plan")
+  void shouldBoundMemory() {
+    for (int i = 0; i < PlanDivergenceTracker.MAX_VARIANTS + 2; i++) {
+      tracker.record("s", List.of(i), plan(node("Op" + i, null, null, Double.NaN, Double.NaN)));
+    }
+    for (int i = 0; i < PlanDivergenceTracker.MAX_BUCKETS + 2; i++) {
+      tracker.record("s", List.of(i), plan(node("Op0", null, null, Double.NaN, Double.NaN)));
+    }
+
+    PlanDivergence divergence = tracker.getDivergentStatements().get(0);
+    assertEquals(PlanDivergenceTracker.MAX_VARIANTS, divergence.getVariants().size());
+    assertEquals(PlanDivergenceTracker.MAX_BUCKETS, divergence.getVariants().get(0).getBuckets().size());
+  }
+
+  @Test
+  @DisplayName("fingerprint: shape without estimates")
+  void fingerprintShouldDescribeShape() {
+    ExplainPlan tree = plan(
+        node("Hash Join", null, null, 5, Double.NaN,
+            node("Seq Scan", "a", null, 5, Double.NaN), node("Index Scan", "b", "pk", 1, Double.NaN)),
+        node("Result", null, null, 1, Double.NaN));
+
+    assertEquals("Hash Join(Seq Scan on a, Index Scan on b using pk); Result",
+        PlanDivergenceTracker.fingerprint(tree));
+  }
+
+  @Test
+  @DisplayName("ignores plans without an operator tree")
+  void shouldIgnorePlansWithoutOperators() {
+    ExplainPlan first = new ExplainPlan(List.of("-> Table scan on orders (actual time=0.021..0.530 rows=100 loops=1)"),
+        Collections.<PlanNode>emptyList(), Collections.<MissingIndex>emptyList());
+    ExplainPlan second = new ExplainPlan(List.of("-> Table scan on orders (actual time=0.019..0.611 rows=100 loops=1)"),
+        Collections.<PlanNode>emptyList(), Collections.<MissingIndex>emptyList());
+
+    assertFalse(tracker.record("OrderMapper.find", List.of(1), first));
+    assertFalse(tracker.record("OrderMapper.find", List.of(2), second));
+    assertTrue(tracker.getDivergentStatements().isEmpty());
+  }
+
+  @Test
+  @DisplayName("bucket: estimated-rows band, else hash of the bind values")
+  void bucketShouldUseRowsBandOrParameterHash() {
+    List<Object> parameters = List.of(1, "x");
+
+    assertEquals("rows~1e0",
+        PlanDivergenceTracker.bucket(plan(node("A", null, null, 0.5, Double.NaN)), parameters));
+    assertEquals("rows~1e2", PlanDivergenceTracker.bucket(
+        plan(node("A", null, null, Double.NaN, Double.NaN), node("B", null, null, 999, Double.NaN)),
+        parameters));
+    assertEquals("params#" + Integer.toHexString(parameters.hashCode()),
+        PlanDivergenceTracker.bucket(plan(node("A", null, null, Double.NaN, Double.NaN)), parameters));
+  }
+
+  @Test
+  @DisplayName("bucket: largest scan estimate under an aggregate root")
+  void bucketShouldUseLargestLeafRowsUnderAggregate() {
+    List<Object> parameters = List.of("PENDING");
+
+    assertEquals("rows~1e3", PlanDivergenceTracker.bucket(plan(node("Aggregate", null, null, 1, 10.0,
+        node("Nested Loop", null, null, 5000, 9.0,
+            node("Seq Scan", "orders", null, 5000, 8.0),
+            node("Index Scan", "customers", "customers_pkey", 1, 0.5)))), parameters));
+    assertEquals("rows~1e1", PlanDivergenceTracker.bucket(plan(node("Aggregate", null, null, 1, 1.0,
+        node("Index Scan", "orders", "idx_orders_status", 4, 0.8),
+        node("Function Scan", null, null, Double.NaN, Double.NaN),
+        node("Index Scan", "order_items", "idx_order_items_order_id", 40, 0.9))), parameters));
+  }
+
+  @Test
+  @DisplayName("truncates long sample parameters")
+  void shouldTruncateSampleParameters() {
+    String longValue = "x".repeat(100);
+    tracker.record("s", Arrays.asList(longValue, null), plan(node("A", null, null, 1, Double.NaN)));
+    tracker.record("s", List.of(), plan(node("B", null, null, 1, Double.NaN)));
+
+    PlanDivergence.Variant variant = tracker.getDivergentStatements().get(0).getVariants().get(0);
+    assertEquals("[" + "x".repeat(64) + "..., null]", variant.getSampleParameters());
+  }
+}
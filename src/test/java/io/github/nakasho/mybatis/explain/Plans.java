@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds plan fixtures.
+ */
+final class Plans {
+
+  private Plans() {
+  }
+
+  static PlanNode node(String operation, String table, String index, double rows, double cost,
+      PlanNode... children) {
+    return new PlanNode(operation, table, index, rows, cost, List.of(children));
+  }
+
+  static ExplainPlan plan(PlanNode... roots) {
+    return new ExplainPlan(List.of(roots), Collections.<MissingIndex>emptyList());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PostgreSqlExplainDialectTest {
+
+  private final PostgreSqlExplainDialect dialect = new PostgreSqlExplainDialect();
+
+  @Test
+  @DisplayName("matches PostgreSQL")
+  void shouldMatchPostgreSql() {
+    assertTrue(dialect.matchesDatabaseId("postgresql"));
+    assertTrue(dialect.matchesDatabaseId("postgres"));
+    assertTrue(dialect.matchesProductName("PostgreSQL"));
+  }
+
+  @Test
+  @DisplayName("supports EXPLAIN ANALYZE and JSON")
+  void shouldReportCapabilities() {
+    assertEquals("EXPLAIN SELECT 1", dialect.getExplainSql("SELECT 1"));
+    assertTrue(dialect.supportsAnalyze());
+    assertEquals("EXPLAIN ANALYZE SELECT 1", dialect.getAnalyzeSql("SELECT 1"));
+    assertTrue(dialect.supportsJsonFormat());
+    assertEquals("EXPLAIN (FORMAT JSON) SELECT 1", dialect.getJsonExplainSql("SELECT 1"));
+  }
+
+  @Test
+  @DisplayName("readPlan: nests operators by indentation")
+  void readPlanShouldNestOperators() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(new String[] {"QUERY PLAN"},
+        new String[] {"Sort  (cost=2.20..2.21 rows=3 width=72)"},
+        new String[] {"  Sort Key: o.created_at"},
+        new String[] {"  ->  Hash Join  (cost=1.09..2.19 rows=3 width=72)"},
+        new String[] {"        Hash Cond: (o.user_id = u.id)"},
+        new String[] {"        ->  Seq Scan on orders o  (cost=0.00..1.03 rows=3 width=40)"},
+        new String[] {"        ->  Hash  (cost=1.04..1.04 rows=4 width=36)"},
+        new String[] {"              ->  Index Scan using users_pkey on users  (cost=0.15..8.17 rows=1 width=36)"},
+        new String[] {null}));
+
+    assertEquals(8, plan.toLines().size());
+    assertEquals(1, plan.getRoots().size());
+    PlanNode sort = plan.getRoots().get(0);
+    assertEquals("Sort", sort.getOperation());
+    assertEquals(2.21, sort.getEstimatedCost());
+    assertEquals(3.0, sort.getEstimatedRows());
+
+    PlanNode join = sort.getChildren().get(0);
+    assertEquals("Hash Join", join.getOperation());
+    assertEquals(2, join.getChildren().size());
+
+    PlanNode seqScan = join.getChildren().get(0);
+    assertEquals("Seq Scan", seqScan.getOperation());
+    assertEquals("orders", seqScan.getObjectName());
+    assertNull(seqScan.getIndexName());
+
+    PlanNode indexScan = join.getChildren().get(1).getChildren().get(0);
+    assertEquals("Index Scan", indexScan.getOperation());
+    assertEquals("users", indexScan.getObjectName());
+    assertEquals("users_pkey", indexScan.getIndexName());
+  }
+
+  @Test
+  @DisplayName("readPlan: sibling statements become separate roots")
+  void readPlanShouldKeepSeparateRoots() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(new String[] {"QUERY PLAN"},
+        new String[] {"Update on users  (cost=0.00..1.05 rows=0 width=0)"},
+        new String[] {"Result  (cost=0.00..0.01 rows=1 width=0)"}));
+
+    List<PlanNode> roots = plan.getRoots();
+    assertEquals(2, roots.size());
+    assertEquals("Update", roots.get(0).getOperation());
+    assertEquals("users", roots.get(0).getObjectName());
+    assertEquals("Result", roots.get(1).getOperation());
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Builds mocked result sets holding explain output.
+ */
+final class ResultSets {
+
+  private ResultSets() {
+  }
+
+  static ResultSet of(String[] labels, String[]... rows) throws SQLException {
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(labels.length);
+    when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> labels[(Integer) invocation.getArgument(0) - 1]);
+
+    int[] cursor = {-1};
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getMetaData()).thenReturn(metaData);
+    when(rs.next()).thenAnswer(invocation -> ++cursor[0] < rows.length);
+    when(rs.getString(anyInt())).thenAnswer(invocation -> rows[cursor[0]][(Integer) invocation.getArgument(0) - 1]);
+    return rs;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ShowplanXmlParserTest {
+
+  private static final String PLAN =
+      "<?xml version=\"1.0\" encoding=\"utf-16\"?>"
+          + "<ShowPlanXML xmlns=\"http://schemas.microsoft.com/sqlserver/2004/07/showplan\" Version=\"1.564\">"
+          + "<BatchSequence><Batch><Statements>"
+          + "<StmtSimple StatementText=\"SELECT * FROM orders o JOIN customers c ON c.id = o.customer_id\">"
+          + "<QueryPlan>"
+          + "<MissingIndexes>"
+          + "<MissingIndexGroup Impact=\"87.5\">"
+          + "<MissingIndex Database=\"[shop]\" Schema=\"[dbo]\" Table=\"[orders]\">"
+          + "<ColumnGroup Usage=\"EQUALITY\"><Column Name=\"[customer_id]\" ColumnId=\"2\"/></ColumnGroup>"
+          + "<ColumnGroup Usage=\"INEQUALITY\"><Column Name=\"[created_at]\" ColumnId=\"3\"/></ColumnGroup>"
+          + "<ColumnGroup Usage=\"INCLUDE\"><Column Name=\"[total]\" ColumnId=\"4\"/></ColumnGroup>"
+          + "</MissingIndex>"
+          + "</MissingIndexGroup>"
+          + "</MissingIndexes>"
+          + "<RelOp NodeId=\"0\" PhysicalOp=\"Hash Match\" LogicalOp=\"Inner Join\" EstimateRows=\"1000\""
+          + " EstimatedTotalSubtreeCost=\"1.25\">"
+          + "<Hash>"
+          + "<RelOp NodeId=\"1\" PhysicalOp=\"Clustered Index Scan\" LogicalOp=\"Clustered Index Scan\""
+          + " EstimateRows=\"50\" EstimatedTotalSubtreeCost=\"0.25\">"
+          + "<IndexScan><Object Database=\"[shop]\" Schema=\"[dbo]\" Table=\"[customers]\" Index=\"[PK_customers]\"/>"
+          + "</IndexScan></RelOp>"
+          + "<RelOp NodeId=\"2\" PhysicalOp=\"Table Scan\" LogicalOp=\"Table Scan\" EstimateRows=\"1E+06\""
+          + " EstimatedTotalSubtreeCost=\"0.75\">"
+          + "<TableScan><Object Database=\"[shop]\" Schema=\"[dbo]\" Table=\"[orders]\"/></TableScan></RelOp>"
+          + "</Hash></RelOp>"
+          + "</QueryPlan></StmtSimple>"
+          + "</Statements></Batch></BatchSequence></ShowPlanXML>";
+
+  @Test
+  @DisplayName("parse: builds the operator tree")
+  void parseShouldBuildOperatorTree() throws Exception {
+    ExplainPlan plan = ShowplanXmlParser.parse(new StringReader(PLAN));
+
+    assertEquals(1, plan.getRoots().size());
+    PlanNode root = plan.getRoots().get(0);
+    assertEquals("Hash Match", root.getOperation());
+    assertNull(root.getObjectName());
+    assertEquals(1000.0, root.getEstimatedRows());
+    assertEquals(1.25, root.getEstimatedCost());
+    assertEquals(1.25, plan.getEstimatedCost());
+
+    List<PlanNode> children = root.getChildren();
+    assertEquals(2, children.size());
+    assertEquals("Clustered Index Scan", children.get(0).getOperation());
+    assertEquals("[dbo].[customers]", children.get(0).getObjectName());
+    assertEquals("[PK_customers]", children.get(0).getIndexName());
+    assertEquals("Table Scan", children.get(1).getOperation());
+    assertEquals("[dbo].[orders]", children.get(1).getObjectName());
+    assertNull(children.get(1).getIndexName());
+    assertEquals(1_000_000.0, children.get(1).getEstimatedRows());
+  }
+
+  @Test
+  @DisplayName("parse: extracts missing-index hints")
+  void parseShouldExtractMissingIndexes() throws Exception {
+    ExplainPlan plan = ShowplanXmlParser.parse(new StringReader(PLAN));
+
+    assertEquals(1, plan.getMissingIndexes().size());
+    MissingIndex missingIndex = plan.getMissingIndexes().get(0);
+    assertEquals("[shop].[dbo].[orders]", missingIndex.getTable());
+    assertEquals(87.5, missingIndex.getImpact());
+    assertEquals(List.of("[customer_id]"), missingIndex.getEqualityColumns());
+    assertEquals(List.of("[created_at]"), missingIndex.getInequalityColumns());
+    assertEquals(List.of("[total]"), missingIndex.getIncludeColumns());
+  }
+
+  @Test
+  @DisplayName("parse: renders the plan as indented lines")
+  void parseShouldRenderLines() throws Exception {
+    List<String> lines = ShowplanXmlParser.parse(new StringReader(PLAN)).toLines();
+
+    assertEquals(List.of(
+        "Hash Match (rows=1000.0 cost=1.25)",
+        "  Clustered Index Scan on [dbo].[customers] using [PK_customers] (rows=50.0 cost=0.25)",
+        "  Table Scan on [dbo].[orders] (rows=1000000.0 cost=0.75)",
+        "MissingIndex on [shop].[dbo].[orders] (impact=87.5) equality=[[customer_id]] inequality=[[created_at]]"
+            + " include=[[total]]"), lines);
+  }
+
+  @Test
+  @DisplayName("parse: keeps the first object of an operator and ignores stray elements")
+  void parseShouldIgnoreUnrelatedElements() throws Exception {
+    String xml = "<ShowPlanXML>"
+        + "<Object Table=\"[outside]\"/>"
+        + "<Column Name=\"[outside]\"/>"
+        + "<RelOp PhysicalOp=\"Nested Loops\">"
+        + "<Object Table=\"[first]\"/>"
+        + "<Object Schema=\"[dbo]\"/>"
+        + "</RelOp>"
+        + "<MissingIndex Table=\"[t]\"><Column Name=\"[c]\"/></MissingIndex>"
+        + "</ShowPlanXML>";
+
+    ExplainPlan plan = ShowplanXmlParser.parse(new StringReader(xml));
+
+    PlanNode root = plan.getRoots().get(0);
+    assertEquals("[first]", root.getObjectName());
+    assertTrue(Double.isNaN(root.getEstimatedRows()));
+    assertTrue(Double.isNaN(root.getEstimatedCost()));
+    MissingIndex missingIndex = plan.getMissingIndexes().get(0);
+    assertEquals("[t]", missingIndex.getTable());
+    assertTrue(Double.isNaN(missingIndex.getImpact()));
+    assertEquals(List.of("[c]"), missingIndex.getIncludeColumns());
+  }
+
+  @Test
+  @DisplayName("parse: schema without table is kept as the object name")
+  void parseShouldKeepSchemaWithoutTable() throws Exception {
+    String xml = "<ShowPlanXML><RelOp PhysicalOp=\"Constant Scan\"><Object Schema=\"[sys]\"/></RelOp></ShowPlanXML>";
+
+    ExplainPlan plan = ShowplanXmlParser.parse(new StringReader(xml));
+
+    assertEquals("[sys]", plan.getRoots().get(0).getObjectName());
+  }
+
+  @Test
+  @DisplayName("parse: rejects DTDs")
+  void parseShouldRejectDtd() {
+    String xml = "<?xml version=\"1.0\"?><!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><x>&e;</x>";
+
+    assertThrows(XMLStreamException.class, () -> ShowplanXmlParser.parse(new StringReader(xml)));
+  }
+
+  @Test
+  @DisplayName("parse: malformed document throws")
+  void parseShouldThrowOnMalformedDocument() {
+    assertThrows(XMLStreamException.class, () -> ShowplanXmlParser.parse(new StringReader("<ShowPlanXML>")));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SqlPredicateExtractorTest {
+
+  @Test
+  @DisplayName("single table: attributes unqualified columns")
+  void shouldAttributeUnqualifiedColumnsOfSingleTable() {
+    Map<String, SqlPredicateExtractor.TableColumns> result = SqlPredicateExtractor.extract(
+        "SELECT * FROM users WHERE status = ? AND created_at >= ? AND name LIKE ? ORDER BY created_at DESC");
+
+    SqlPredicateExtractor.TableColumns users = result.get("users");
+    assertEquals(List.of("status"), List.copyOf(users.getEquality()));
+    assertEquals(List.of("created_at", "name"), List.copyOf(users.getRange()));
+    assertEquals(List.of("created_at"), List.copyOf(users.getOrderBy()));
+  }
+
+  @Test
+  @DisplayName("classifies every comparison operator")
+  void shouldClassifyComparisonOperators() {
+    SqlPredicateExtractor.TableColumns t = SqlPredicateExtractor.extract(
+        "SELECT * FROM t WHERE a > ? AND b <= ? AND c_$ = ? AND d =").get("t");
+
+    assertEquals(List.of("a", "b"), List.copyOf(t.getRange()));
+    assertEquals(List.of("c_$", "d"), List.copyOf(t.getEquality()));
+  }
+
+  @Test
+  @DisplayName("joins: resolves aliases and join columns")
+  void shouldResolveAliases() {
+    Map<String, SqlPredicateExtractor.TableColumns> result = SqlPredicateExtractor.extract(
+        "SELECT o.id FROM shop.orders AS o INNER JOIN \"Users\" u ON u.id = o.user_id"
+            + " WHERE o.total > 10 AND u.country IN (?, ?) AND o.note IS NULL ORDER BY o.created_at");
+
+    assertEquals(List.of("note"), List.copyOf(result.get("orders").getEquality()));
+    assertEquals(List.of("user_id"), List.copyOf(result.get("orders").getJoin()));
+    assertEquals(List.of("total"), List.copyOf(result.get("orders").getRange()));
+    assertEquals(List.of("created_at"), List.copyOf(result.get("orders").getOrderBy()));
+    assertEquals(List.of("country"), List.copyOf(result.get("users").getEquality()));
+    assertEquals(List.of("id"), List.copyOf(result.get("users").getJoin()));
+  }
+
+  @Test
+  @DisplayName("comma joins and subqueries")
+  void shouldHandleCommaJoinsAndSubqueries() {
+    Map<String, SqlPredicateExtractor.TableColumns> result = SqlPredicateExtractor.extract(
+        "SELECT a.x FROM a, b bb WHERE a.id = bb.a_id AND a.id IN (SELECT c.a_id FROM c WHERE c.kind = 'x''y')"
+            + " AND (a.flag = 1 OR a.flag BETWEEN 2 AND 3)");
+
+    assertEquals(List.of("id", "flag"), List.copyOf(result.get("a").getEquality()));
+    assertEquals(List.of("id"), List.copyOf(result.get("a").getJoin()));
+    assertEquals(List.of("flag"), List.copyOf(result.get("a").getRange()));
+    assertTrue(result.get("b").getEquality().isEmpty());
+    assertEquals(List.of("a_id"), List.copyOf(result.get("b").getJoin()));
+    assertEquals(List.of("kind"), List.copyOf(result.get("c").getEquality()));
+  }
+
+  @Test
+  @DisplayName("ignores functions, negations, comments and literals")
+  void shouldIgnoreNonSargablePredicates() {
+    Map<String, SqlPredicateExtractor.TableColumns> result = SqlPredicateExtractor.extract(
+        "/* hint */ SELECT * FROM t -- trailing\n WHERE lower(name) = ? AND a <> 1 AND b != 2 AND c NOT IN (1)"
+            + " AND d IS NOT NULL AND e NOT LIKE 'a\\'b' AND 1 = 1 AND f < 3 GROUP BY g ORDER BY upper(h), i");
+
+    SqlPredicateExtractor.TableColumns t = result.get("t");
+    assertTrue(t.getEquality().isEmpty());
+    assertEquals(List.of("f"), List.copyOf(t.getRange()));
+    assertEquals(List.of("i"), List.copyOf(t.getOrderBy()));
+  }
+
+  @Test
+  @DisplayName("ambiguous and unknown columns are dropped")
+  void shouldDropUnresolvableColumns() {
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM a JOIN b ON x = y WHERE z.c = 1").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT 1 WHERE ? = 1").isEmpty());
+  }
+
+  @Test
+  @DisplayName("update, delete and insert targets")
+  void shouldHandleDml() {
+    assertEquals(List.of("id"),
+        List.copyOf(SqlPredicateExtractor.extract("UPDATE users SET name = ? WHERE id = ?").get("users").getEquality()));
+    assertEquals(List.of("id"),
+        List.copyOf(SqlPredicateExtractor.extract("DELETE FROM users u WHERE u.id = ?").get("users").getEquality()));
+    assertTrue(SqlPredicateExtractor.extract("INSERT INTO users (id) VALUES (?)").isEmpty());
+  }
+
+  @Test
+  @DisplayName("tolerates truncated statements")
+  void shouldTolerateTruncatedSql() {
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM (").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM t AS").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM t WHERE 'open \\").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM t ORDER").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract("SELECT * FROM t ORDER x -- open").isEmpty());
+    assertTrue(SqlPredicateExtractor.extract(") SELECT 1 /* open").isEmpty());
+    assertEquals(List.of("a", "b"),
+        List.copyOf(SqlPredicateExtractor.extract("SELECT * FROM t WHERE a = b IS").get("t").getJoin()));
+  }
+
+  @Test
+  @DisplayName("analyze: resolves plan table names through the aliases")
+  void analyzeShouldResolveAliases() {
+    SqlPredicateExtractor.Result result = SqlPredicateExtractor.analyze(
+        "SELECT * FROM shop.orders o JOIN `customers` AS c ON c.id = o.customer_id");
+
+    assertEquals("orders", result.resolveTable("o"));
+    assertEquals("orders", result.resolveTable("shop.Orders"));
+    assertEquals("customers", result.resolveTable("C"));
+    assertEquals("archive", result.resolveTable("`archive`"));
+    assertEquals(List.of("id"), List.copyOf(result.getColumns().get("customers").getJoin()));
+  }
+
+  @Test
+  @DisplayName("normalizeTable: strips quoting and schema")
+  void normalizeTableShouldStripQualifiers() {
+    assertEquals("orders", SqlPredicateExtractor.normalizeTable("[shop].[dbo].[Orders]"));
+    assertEquals("orders", SqlPredicateExtractor.normalizeTable("`orders`"));
+    assertEquals("orders", SqlPredicateExtractor.normalizeTable("ORDERS"));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SqlServerExplainDialectTest {
+
+  private final SqlServerExplainDialect dialect = new SqlServerExplainDialect();
+
+  @Test
+  @DisplayName("matches SQL Server and keeps the SQL unchanged")
+  void shouldMatchSqlServer() {
+    assertEquals("SELECT 1", dialect.getExplainSql("SELECT 1"));
+    assertTrue(dialect.matchesDatabaseId("sqlserver"));
+    assertTrue(dialect.matchesDatabaseId("SQL Server"));
+    assertTrue(dialect.matchesDatabaseId("mssql"));
+    assertTrue(dialect.matchesProductName("Microsoft SQL Server"));
+  }
+
+  @Test
+  @DisplayName("toggles SHOWPLAN_XML around the explain")
+  void shouldToggleShowplanXml() throws Exception {
+    Statement stmt = mock(Statement.class);
+    Connection connection = mock(Connection.class);
+    when(connection.createStatement()).thenReturn(stmt);
+
+    dialect.beforeExplain(connection);
+    verify(stmt).execute("SET SHOWPLAN_XML ON");
+    dialect.afterExplain(connection);
+    verify(stmt).execute("SET SHOWPLAN_XML OFF");
+  }
+
+  @Test
+  @DisplayName("readPlan: merges the plan of every statement")
+  void readPlanShouldMergeStatements() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(true, true, false);
+    when(rs.getCharacterStream(1)).thenReturn(
+        new StringReader("<ShowPlanXML><RelOp PhysicalOp=\"Table Scan\"/></ShowPlanXML>"),
+        new StringReader("<ShowPlanXML><RelOp PhysicalOp=\"Index Seek\"/>"
+            + "<MissingIndex Table=\"[t]\"/></ShowPlanXML>"));
+
+    ExplainPlan plan = dialect.readPlan(rs);
+
+    assertEquals(2, plan.getRoots().size());
+    assertEquals("Table Scan", plan.getRoots().get(0).getOperation());
+    assertEquals("Index Seek", plan.getRoots().get(1).getOperation());
+    assertEquals(1, plan.getMissingIndexes().size());
+  }
+}
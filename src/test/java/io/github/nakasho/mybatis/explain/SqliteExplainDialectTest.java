@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.github.nakasho.mybatis.explain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SqliteExplainDialectTest {
+
+  private final SqliteExplainDialect dialect = new SqliteExplainDialect();
+
+  @Test
+  @DisplayName("uses EXPLAIN QUERY PLAN")
+  void shouldUseExplainQueryPlan() {
+    assertEquals("EXPLAIN QUERY PLAN SELECT 1", dialect.getExplainSql("SELECT 1"));
+    assertTrue(dialect.matchesDatabaseId("sqlite"));
+    assertTrue(dialect.matchesProductName("SQLite"));
+  }
+
+  @Test
+  @DisplayName("readPlan: nests rows by parent id")
+  void readPlanShouldNestByParent() throws Exception {
+    ExplainPlan plan = dialect.readPlan(ResultSets.of(new String[] {"id", "parent", "notused", "detail"},
+        new String[] {"2", "0", "0", "SCAN TABLE orders AS o"},
+        new String[] {"5", "0", "0", "SEARCH users USING INDEX idx_users_email (email=?)"},
+        new String[] {"8", "0", "0", "SEARCH items USING INTEGER PRIMARY KEY (rowid=?)"},
+        new String[] {"11", "0", "0", "CORRELATED SCALAR SUBQUERY 1"},
+        new String[] {"14", "11", "0", "SCAN logs USING COVERING INDEX idx_logs"},
+        new String[] {"20", "0", "0", "USE TEMP B-TREE FOR ORDER BY"}));
+
+    List<PlanNode> roots = plan.getRoots();
+    assertEquals(5, roots.size());
+    assertEquals("SCAN", roots.get(0).getOperation());
+    assertEquals("orders", roots.get(0).getObjectName());
+    assertNull(roots.get(0).getIndexName());
+    assertEquals("SEARCH", roots.get(1).getOperation());
+    assertEquals("users", roots.get(1).getObjectName());
+    assertEquals("idx_users_email", roots.get(1).getIndexName());
+    assertEquals("items", roots.get(2).getObjectName());
+    assertNull(roots.get(2).getIndexName());
+    assertEquals("CORRELATED SCALAR SUBQUERY 1", roots.get(3).getOperation());
+    PlanNode covering = roots.get(3).getChildren().get(0);
+    assertEquals("logs", covering.getObjectName());
+    assertEquals("idx_logs", covering.getIndexName());
+    assertEquals("USE TEMP B-TREE FOR ORDER BY", roots.get(4).getOperation());
+  }
+
+  @Test
+  @DisplayName("readPlan: no operators without the query plan columns")
+  void readPlanShouldSkipUnexpectedColumns() throws Exception {
+    assertTrue(dialect.readPlan(ResultSets.of(new String[] {"addr", "opcode"}, new String[] {"0", "Init"}))
+        .getRoots().isEmpty());
+    assertTrue(dialect.readPlan(ResultSets.of(new String[] {"id", "detail"}, new String[] {"0", "SCAN t"}))
+        .getRoots().isEmpty());
+    assertTrue(dialect.readPlan(ResultSets.of(new String[] {"id", "parent"}, new String[] {"0", "0"}))
+        .getRoots().isEmpty());
+  }
+}